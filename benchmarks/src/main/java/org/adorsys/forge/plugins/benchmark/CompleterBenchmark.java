@@ -0,0 +1,129 @@
+package org.adorsys.forge.plugins.benchmark;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.adorsys.forge.plugins.description.AccessorCompleter;
+import org.adorsys.forge.plugins.description.AccessorTokenCache;
+import org.adorsys.forge.plugins.display.EntityFieldIndex;
+import org.adorsys.forge.plugins.display.FieldTypePropertyCompleter;
+import org.adorsys.forge.plugins.display.NestedPropertyCompleter;
+import org.adorsys.forge.plugins.utils.JavaSourceCache;
+import org.jboss.forge.resources.java.JavaResource;
+import org.jboss.forge.shell.events.PickupResource;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Cost of one completion of the accessor and property completers on the last
+ * entity of a chain of synthetic entities with a growing number of fields.
+ * The completions on a hit are served by the {@link AccessorTokenCache} and
+ * the {@link EntityFieldIndex}, the completions on a miss follow a save of
+ * all entities and parse them again through the {@link JavaSourceCache}.
+ *
+ * @author francis pouatcha
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class CompleterBenchmark {
+
+	/*
+	 * One more entity than relationships followed by the nested property
+	 * completer.
+	 */
+	private static final int ENTITIES = 4;
+
+	@Param({ "10", "100", "300" })
+	public int fields;
+
+	private SyntheticProject project;
+	private JavaResource[] resources;
+	private JavaSourceCache javaSourceCache;
+	private AccessorTokenCache accessorTokenCache;
+	private EntityFieldIndex entityFieldIndex;
+	private AccessorCompleter accessorCompleter;
+	private NestedPropertyCompleter nestedPropertyCompleter;
+	private FieldTypePropertyCompleter fieldTypePropertyCompleter;
+
+	@Setup(Level.Trial)
+	public void createProject() throws IOException {
+		project = SyntheticProject.create(ENTITIES, fields);
+		SyntheticShell shell = new SyntheticShell(project);
+		resources = new JavaResource[ENTITIES];
+		for (int e = 0; e < ENTITIES; e++) {
+			resources[e] = shell.getJavaResource(e);
+		}
+		shell.setCurrentResource(resources[ENTITIES - 1]);
+		javaSourceCache = new JavaSourceCache(shell.getShell());
+		accessorTokenCache = new AccessorTokenCache(javaSourceCache);
+		entityFieldIndex = new EntityFieldIndex(javaSourceCache);
+		accessorCompleter = new AccessorCompleter(shell.getShell(),
+				accessorTokenCache);
+		nestedPropertyCompleter = new NestedPropertyCompleter(shell.getShell(),
+				shell.getProject(), entityFieldIndex);
+		fieldTypePropertyCompleter = new FieldTypePropertyCompleter(
+				shell.getShell(), shell.getProject(), entityFieldIndex);
+	}
+
+	@TearDown(Level.Trial)
+	public void deleteProject() {
+		project.delete();
+	}
+
+	@Benchmark
+	public Iterable<String> accessorsOnHit() {
+		return accessorCompleter.getCompletionTokens();
+	}
+
+	@Benchmark
+	public Iterable<String> accessorsOnMiss() {
+		save();
+		return accessorCompleter.getCompletionTokens();
+	}
+
+	@Benchmark
+	public List<String> nestedPropertiesOnHit() {
+		return nestedPropertyCompleter.getCompletionTokens();
+	}
+
+	@Benchmark
+	public List<String> nestedPropertiesOnMiss() {
+		save();
+		return nestedPropertyCompleter.getCompletionTokens();
+	}
+
+	@Benchmark
+	public List<String> fieldTypePropertiesOnHit() {
+		return fieldTypePropertyCompleter.getCompletionTokens();
+	}
+
+	/*
+	 * What the save service does for each saved entity: the parsed source is
+	 * invalidated and the pick up event drops the tokens and the fields.
+	 */
+	private void save() {
+		for (JavaResource resource : resources) {
+			javaSourceCache.invalidate(resource.getUnderlyingResourceObject());
+			PickupResource event = new PickupResource(resource);
+			accessorTokenCache.onPickup(event);
+			entityFieldIndex.onPickup(event);
+		}
+	}
+}
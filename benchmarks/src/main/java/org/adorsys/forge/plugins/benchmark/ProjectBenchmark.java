@@ -0,0 +1,118 @@
+package org.adorsys.forge.plugins.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.adorsys.forge.plugins.description.DescriptionKeyGenerator;
+import org.adorsys.forge.plugins.utils.BundleSession;
+import org.adorsys.forge.plugins.utils.JavaSourceScanner;
+import org.jboss.forge.parser.java.JavaSource;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Whole project operations: parsing, key generation and bundle writing on a
+ * synthetic project. Each invocation processes the complete project, so the
+ * single shot time is the latency of one command.
+ *
+ * @author francis pouatcha
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ProjectBenchmark {
+
+	@Param({ "100", "1000", "10000" })
+	public int entities;
+
+	@Param({ "20" })
+	public int fields;
+
+	private SyntheticProject project;
+	private List<File> files;
+
+	@Setup(Level.Trial)
+	public void createProject() throws IOException {
+		project = SyntheticProject.create(entities, fields);
+		files = JavaSourceScanner.listJavaFiles(project.getSourceFolder(), null);
+	}
+
+	@Setup(Level.Iteration)
+	public void clearBundles() {
+		project.clearResources();
+	}
+
+	@TearDown(Level.Trial)
+	public void deleteProject() {
+		project.delete();
+	}
+
+	@Benchmark
+	public int parseProject() {
+		final AtomicInteger classes = new AtomicInteger();
+		JavaSourceScanner.scan(files, new JavaSourceScanner.Visitor() {
+			@Override
+			public void visit(File file, JavaSource<?> javaSource) {
+				if (javaSource.isClass())
+					classes.incrementAndGet();
+			}
+		});
+		return classes.get();
+	}
+
+	/*
+	 * Same work as 'generate-description-keys --onAllProperties
+	 * --onAllAccessors --recursive' without saving the sources.
+	 */
+	@Benchmark
+	public int generateDescriptionKeys() {
+		final DescriptionKeyGenerator generator = new DescriptionKeyGenerator(
+				project.getResourceFolder(), new BundleSession());
+		JavaSourceScanner.scan(files, new JavaSourceScanner.Visitor() {
+			@Override
+			public void visit(File file, JavaSource<?> javaSource) {
+				generator.generate(javaSource, true, true);
+			}
+		});
+		return generator.getBundleSession().flush();
+	}
+
+	/*
+	 * Title and text of every field of every entity, one bundle per entity.
+	 * The first iteration after clearBundles writes the bundles, later
+	 * invocations only compare.
+	 */
+	@Benchmark
+	public int updateResourceBundleFiles() {
+		DescriptionKeyGenerator generator = new DescriptionKeyGenerator(
+				project.getResourceFolder(), new BundleSession());
+		for (int e = 0; e < entities; e++) {
+			String entityName = SyntheticProject.entityName(e);
+			for (int f = 0; f < fields; f++) {
+				generator.updateResourceBundleFiles(
+						SyntheticProject.ENTITY_PACKAGE, entityName, null,
+						entityName + "_field" + f + "_description", "Field " + f,
+						"The field " + f + " of " + entityName);
+			}
+		}
+		return generator.getBundleSession().flush();
+	}
+}
@@ -0,0 +1,127 @@
+package org.adorsys.forge.plugins.benchmark;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+
+/**
+ * Generates a project layout with a given number of JPA entities. Each entity
+ * has an id, a version, the requested number of simple fields carrying
+ * validation constraints and a many to one reference to the previous entity.
+ *
+ * @author francis pouatcha
+ *
+ */
+public class SyntheticProject {
+
+	public static final String ENTITY_PACKAGE = "org.adorsys.synthetic.jpa";
+
+	private final File root;
+	private final File sourceFolder;
+	private final File resourceFolder;
+
+	public SyntheticProject(File root) {
+		this.root = root;
+		this.sourceFolder = new File(root, "src/main/java");
+		this.resourceFolder = new File(root, "src/main/resources");
+	}
+
+	public static SyntheticProject create(int entities, int fields)
+			throws IOException {
+		File root = File.createTempFile("synthetic-project", "");
+		root.delete();
+		SyntheticProject project = new SyntheticProject(root);
+		project.generate(entities, fields);
+		return project;
+	}
+
+	public void generate(int entities, int fields) throws IOException {
+		File packageFolder = new File(sourceFolder, ENTITY_PACKAGE.replace('.',
+				File.separatorChar));
+		packageFolder.mkdirs();
+		resourceFolder.mkdirs();
+		for (int i = 0; i < entities; i++) {
+			write(new File(packageFolder, entityName(i) + ".java"),
+					entitySource(i, fields));
+		}
+	}
+
+	public static String entityName(int index) {
+		return "Entity" + index;
+	}
+
+	static String entitySource(int index, int fields) {
+		StringBuilder source = new StringBuilder();
+		source.append("package ").append(ENTITY_PACKAGE).append(";\n\n");
+		source.append("import javax.persistence.Entity;\n");
+		source.append("import javax.persistence.Id;\n");
+		source.append("import javax.persistence.ManyToOne;\n");
+		source.append("import javax.persistence.Version;\n");
+		source.append("import javax.validation.constraints.NotNull;\n");
+		source.append("import javax.validation.constraints.Size;\n\n");
+		source.append("@Entity\npublic class ").append(entityName(index))
+				.append(" {\n");
+		source.append("\t@Id\n\tprivate Long id;\n\n");
+		source.append("\t@Version\n\tprivate int version;\n\n");
+		for (int f = 0; f < fields; f++) {
+			source.append("\t@NotNull\n\t@Size(max = 64)\n\tprivate String field")
+					.append(f).append(";\n\n");
+		}
+		if (index > 0) {
+			source.append("\t@ManyToOne\n\tprivate ")
+					.append(entityName(index - 1)).append(" parent;\n\n");
+		}
+		for (int f = 0; f < fields; f++) {
+			source.append("\tpublic String getField").append(f)
+					.append("() {\n\t\treturn field").append(f)
+					.append(";\n\t}\n\n");
+			source.append("\tpublic void setField").append(f)
+					.append("(String field").append(f).append(") {\n\t\tthis.field")
+					.append(f).append(" = field").append(f).append(";\n\t}\n\n");
+		}
+		source.append("}\n");
+		return source.toString();
+	}
+
+	public File getRoot() {
+		return root;
+	}
+
+	public File getSourceFolder() {
+		return sourceFolder;
+	}
+
+	public File getResourceFolder() {
+		return resourceFolder;
+	}
+
+	public void clearResources() {
+		delete(resourceFolder);
+		resourceFolder.mkdirs();
+	}
+
+	public void delete() {
+		delete(root);
+	}
+
+	private static void delete(File file) {
+		File[] children = file.listFiles();
+		if (children != null) {
+			for (File child : children) {
+				delete(child);
+			}
+		}
+		file.delete();
+	}
+
+	private static void write(File file, String content) throws IOException {
+		Writer writer = new OutputStreamWriter(new FileOutputStream(file), "UTF-8");
+		try {
+			writer.write(content);
+		} finally {
+			writer.close();
+		}
+	}
+}
@@ -0,0 +1,132 @@
+package org.adorsys.forge.plugins.benchmark;
+
+import java.io.File;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+
+import org.jboss.forge.project.Project;
+import org.jboss.forge.project.facets.JavaSourceFacet;
+import org.jboss.forge.resources.DirectoryResource;
+import org.jboss.forge.resources.Resource;
+import org.jboss.forge.resources.java.JavaResource;
+import org.jboss.forge.shell.Shell;
+
+/**
+ * Shell and project over a {@link SyntheticProject}, so that the caches and
+ * completers of the plugins run outside of Forge. The shell only knows its
+ * current project and resource, the project only has the java source facet.
+ * Any other call fails.
+ *
+ * @author francis pouatcha
+ *
+ */
+public class SyntheticShell {
+
+	private final SyntheticProject syntheticProject;
+	private final Project project;
+	private final Shell shell;
+	private volatile Resource<?> currentResource;
+
+	public SyntheticShell(SyntheticProject syntheticProject) {
+		this.syntheticProject = syntheticProject;
+		final DirectoryResource projectRoot = new SyntheticDirectory(
+				syntheticProject.getRoot());
+		final DirectoryResource sourceFolder = new SyntheticDirectory(
+				syntheticProject.getSourceFolder());
+		final JavaSourceFacet java = proxy(JavaSourceFacet.class,
+				new Handler() {
+					@Override
+					Object handle(Method method, Object[] args) {
+						if ("getSourceFolder".equals(method.getName()))
+							return sourceFolder;
+						return unsupported(method);
+					}
+				});
+		project = proxy(Project.class, new Handler() {
+			@Override
+			Object handle(Method method, Object[] args) {
+				if ("getProjectRoot".equals(method.getName()))
+					return projectRoot;
+				if ("getFacet".equals(method.getName())
+						&& JavaSourceFacet.class.equals(args[0]))
+					return java;
+				if ("hasFacet".equals(method.getName()))
+					return JavaSourceFacet.class.equals(args[0]);
+				return unsupported(method);
+			}
+		});
+		shell = proxy(Shell.class, new Handler() {
+			@Override
+			Object handle(Method method, Object[] args) {
+				if ("getCurrentProject".equals(method.getName()))
+					return project;
+				if ("getCurrentResource".equals(method.getName()))
+					return currentResource;
+				return unsupported(method);
+			}
+		});
+	}
+
+	public Shell getShell() {
+		return shell;
+	}
+
+	public Project getProject() {
+		return project;
+	}
+
+	public void setCurrentResource(Resource<?> currentResource) {
+		this.currentResource = currentResource;
+	}
+
+	/**
+	 * @return the resource of the entity with the given index.
+	 */
+	public JavaResource getJavaResource(int entity) {
+		return new JavaResource(null, new File(syntheticProject.getSourceFolder(),
+				(SyntheticProject.ENTITY_PACKAGE + "." + SyntheticProject.entityName(entity))
+						.replace('.', File.separatorChar) + ".java"));
+	}
+
+	private static <T> T proxy(Class<T> type, InvocationHandler handler) {
+		return type.cast(Proxy.newProxyInstance(
+				SyntheticShell.class.getClassLoader(), new Class<?>[] { type },
+				handler));
+	}
+
+	private static abstract class Handler implements InvocationHandler {
+		@Override
+		public Object invoke(Object proxy, Method method, Object[] args) {
+			if ("toString".equals(method.getName()))
+				return getClass().getName();
+			if ("hashCode".equals(method.getName()))
+				return System.identityHashCode(proxy);
+			if ("equals".equals(method.getName()))
+				return proxy == args[0];
+			return handle(method, args);
+		}
+
+		abstract Object handle(Method method, Object[] args);
+
+		Object unsupported(Method method) {
+			throw new UnsupportedOperationException(method.getName());
+		}
+	}
+
+	/*
+	 * Resolves java files without a resource factory.
+	 */
+	private static class SyntheticDirectory extends DirectoryResource {
+		SyntheticDirectory(File file) {
+			super(null, file);
+		}
+
+		@Override
+		public Resource<?> getChild(String name) {
+			File child = new File(getUnderlyingResourceObject(), name);
+			return child.getName().endsWith(".java") ? new JavaResource(null,
+					child) : new SyntheticDirectory(child);
+		}
+	}
+}
@@ -0,0 +1,90 @@
+package org.adorsys.forge.plugins.maven;
+
+import java.io.File;
+import java.util.List;
+
+import org.adorsys.forge.plugins.description.ChangeSet;
+import org.adorsys.forge.plugins.description.DescriptionService;
+import org.adorsys.forge.plugins.description.DescriptionState;
+import org.apache.maven.plugin.AbstractMojo;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugins.annotations.LifecyclePhase;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+
+/**
+ * Generates the description keys of the sources and adds the missing bundle
+ * entries of their keys, as the generate-description-keys shell command does.
+ *
+ * Only sources changed since the last build are parsed. The state file of
+ * the build directory is a {@link DescriptionState} manifest: the content of
+ * every processed source and of the default bundles, and the bundle keys of
+ * each source. A source is processed again if it changed, or if its bundle
+ * changed and lost one of its keys. Only sources that were processed are
+ * recorded, so a failed build processes them again. Changing an option of
+ * the goal processes all sources.
+ *
+ * @author francis pouatcha
+ *
+ */
+@Mojo(name = "generate", defaultPhase = LifecyclePhase.PROCESS_SOURCES, threadSafe = true)
+public class GenerateDescriptionsMojo extends AbstractMojo {
+
+	@Parameter(defaultValue = "${project.build.sourceDirectory}", required = true)
+	private File sourceDirectory;
+
+	@Parameter(defaultValue = "${basedir}/src/main/resources", required = true)
+	private File resourceDirectory;
+
+	@Parameter(defaultValue = "${project.build.directory}/description-state.properties", required = true)
+	private File stateFile;
+
+	/**
+	 * Restricts the goal to a package and its sub packages.
+	 */
+	@Parameter(property = "description.package")
+	private String packageName;
+
+	@Parameter(property = "description.onAllProperties", defaultValue = "false")
+	private boolean onAllProperties;
+
+	@Parameter(property = "description.onAllAccessors", defaultValue = "false")
+	private boolean onAllAccessors;
+
+	@Parameter(property = "description.skip", defaultValue = "false")
+	private boolean skip;
+
+	@Override
+	public void execute() throws MojoExecutionException {
+		if (skip || !sourceDirectory.isDirectory()) {
+			getLog().info("Skipping description generation.");
+			return;
+		}
+		long start = System.currentTimeMillis();
+		DescriptionService service = new DescriptionService(sourceDirectory, resourceDirectory);
+		List<File> files = service.listSources(packageName);
+		DescriptionState state = DescriptionState.load(stateFile);
+
+		ChangeSet changeSet;
+		try {
+			changeSet = service.generateKeys(files, onAllProperties, onAllAccessors, state);
+			changeSet.apply(sourceDirectory);
+		} catch (IllegalStateException e) {
+			throw new MojoExecutionException(e.getMessage(), e);
+		}
+		/*
+		 * Written sources have a new content, the state is taken after the
+		 * change set was applied. Sources outside of the package keep their
+		 * state.
+		 */
+		service.record(changeSet, files, state, packageName == null);
+
+		if (changeSet.getScanned() == 0) {
+			getLog().info("Descriptions of " + files.size() + " sources are up to date.");
+			return;
+		}
+		getLog().info("Processed " + changeSet.getScanned() + " of " + files.size() + " sources in "
+				+ (System.currentTimeMillis() - start) + " ms, " + changeSet.getSourcesWritten()
+				+ " sources and " + changeSet.getBundlesWritten() + " bundle files written.");
+	}
+}
@@ -0,0 +1,43 @@
+package org.adorsys.forge.plugins.jfr;
+
+import org.adorsys.forge.plugins.utils.CommandStatistics.Phase;
+import org.adorsys.forge.plugins.utils.PhaseListener;
+
+/**
+ * Emits a {@link PhaseEvent} for each phase. While no recording enables the
+ * event, no event is allocated.
+ *
+ * @author francis pouatcha
+ *
+ */
+public class JfrPhaseListener implements PhaseListener {
+
+	/*
+	 * Only used to ask whether the event type is enabled.
+	 */
+	private static final PhaseEvent PROBE = new PhaseEvent();
+
+	@Override
+	public Object start(Phase phase, String command, String className) {
+		if (!PROBE.isEnabled())
+			return null;
+		PhaseEvent event = new PhaseEvent();
+		event.phase = phase.name();
+		event.command = command;
+		event.className = className;
+		event.begin();
+		return event;
+	}
+
+	@Override
+	public void end(Object token, long bytes) {
+		if (token == null)
+			return;
+		PhaseEvent event = (PhaseEvent) token;
+		event.end();
+		if (event.shouldCommit()) {
+			event.bytes = bytes;
+			event.commit();
+		}
+	}
+}
@@ -0,0 +1,37 @@
+package org.adorsys.forge.plugins.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A phase of a plugin command or a completion.
+ *
+ * @author francis pouatcha
+ *
+ */
+@Name("org.adorsys.forge.Phase")
+@Label("Forge Plugin Phase")
+@Category({ "Forge", "Description Plugin" })
+@Description("A parse, mutate, save, bundle write, pickup or completion phase of a plugin command.")
+@StackTrace(false)
+class PhaseEvent extends Event {
+
+	@Label("Phase")
+	String phase;
+
+	@Label("Command")
+	String command;
+
+	@Label("Class")
+	@Description("The class, bundle or file the phase works on.")
+	String className;
+
+	@Label("Bytes Written")
+	@DataAmount
+	long bytes;
+}
@@ -1,12 +1,25 @@
 package org.adorsys.forge.plugins.access;
 
 import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 
 import javax.enterprise.event.Event;
 import javax.inject.Inject;
 
 import org.adorsys.forge.plugins.description.DescriptionFacet;
 import org.adorsys.forge.plugins.description.DescriptionPluginUtils;
+import org.adorsys.forge.plugins.utils.CsvReader;
+import org.adorsys.forge.plugins.utils.JavaSourceCache;
+import org.adorsys.forge.plugins.utils.ProjectSymbolIndex;
+import org.adorsys.forge.plugins.utils.ProjectSymbolIndex.Kind;
+import org.adorsys.forge.plugins.utils.SaveService;
+import org.adorsys.forge.plugins.utils.Timed;
 import org.adorsys.forge.plugins.utils.Utils;
 import org.adorsys.javaext.admin.LoginRole;
 import org.adorsys.javaext.admin.LoginTable;
@@ -19,7 +32,6 @@ import org.jboss.forge.parser.java.JavaClass;
 import org.jboss.forge.parser.java.JavaEnum;
 import org.jboss.forge.parser.java.JavaSource;
 import org.jboss.forge.project.Project;
-import org.jboss.forge.project.facets.JavaSourceFacet;
 import org.jboss.forge.project.facets.events.InstallFacets;
 import org.jboss.forge.resources.Resource;
 import org.jboss.forge.resources.java.JavaResource;
@@ -27,7 +39,6 @@ import org.jboss.forge.shell.PromptType;
 import org.jboss.forge.shell.Shell;
 import org.jboss.forge.shell.ShellMessages;
 import org.jboss.forge.shell.completer.PropertyCompleter;
-import org.jboss.forge.shell.events.PickupResource;
 import org.jboss.forge.shell.plugins.Alias;
 import org.jboss.forge.shell.plugins.Command;
 import org.jboss.forge.shell.plugins.Help;
@@ -37,7 +48,6 @@ import org.jboss.forge.shell.plugins.Plugin;
 import org.jboss.forge.shell.plugins.RequiresFacet;
 import org.jboss.forge.shell.plugins.RequiresProject;
 import org.jboss.forge.shell.plugins.SetupCommand;
-import org.jboss.forge.spec.javaee.PersistenceFacet;
 
 /**
  * Add
@@ -49,6 +59,7 @@ import org.jboss.forge.spec.javaee.PersistenceFacet;
 @RequiresProject
 @Help("This plugin will hel you add access control informations on entity fields.")
 @RequiresFacet({ DescriptionFacet.class })
+@Timed
 public class AccessPlugin implements Plugin {
 
 	@Inject
@@ -58,11 +69,17 @@ public class AccessPlugin implements Plugin {
 	private Event<InstallFacets> request;
 
 	@Inject
-	private Event<PickupResource> pickup;
+	private SaveService saveService;
+
+	@Inject
+	private JavaSourceCache javaSourceCache;
 
 	@Inject
 	private Shell shell;
 
+	@Inject
+	private ProjectSymbolIndex symbolIndex;
+
 	@SetupCommand
 	public void setup(final PipeOut out) {
 		if (!project.hasFacet(DescriptionFacet.class)) {
@@ -81,7 +98,7 @@ public class AccessPlugin implements Plugin {
 			@Option(name = "onConstant", completer =EnumConstantCompleter.class, required = true) String constant,			
 			final PipeOut out) {
 		final Resource<?> currentResource = shell.getCurrentResource();
-		JavaSource<?> javaSource = DescriptionPluginUtils.readCurrentResource(currentResource);
+		JavaSource<?> javaSource = DescriptionPluginUtils.readCurrentResource(currentResource, javaSourceCache);
 		
 		if (!javaSource.isEnum()) {
 			throw new IllegalStateException("The current resource is not an enum resource");
@@ -146,7 +163,7 @@ public class AccessPlugin implements Plugin {
 			final String propertyName, final String propertyValue) {
 		final Resource<?> currentResource = shell.getCurrentResource();
 		JavaSource<?> javaSource = DescriptionPluginUtils
-				.readCurrentResource(currentResource);
+				.readCurrentResource(currentResource, javaSourceCache);
 
 		if (!javaSource.isClass()) {
 			throw new IllegalStateException(
@@ -166,7 +183,7 @@ public class AccessPlugin implements Plugin {
 			@Option(name = "actionEnumClass", type = PromptType.JAVA_CLASS, required = true) final String actionEnumClass) throws FileNotFoundException {
 		final Resource<?> currentResource = shell.getCurrentResource();
 		JavaSource<?> javaSource = DescriptionPluginUtils
-				.readCurrentResource(currentResource);
+				.readCurrentResource(currentResource, javaSourceCache);
 
 		if (!javaSource.isClass()) {
 			throw new IllegalStateException(
@@ -188,7 +205,7 @@ public class AccessPlugin implements Plugin {
 	public void loginTable(final PipeOut out) {
 		final Resource<?> currentResource = shell.getCurrentResource();
 		JavaSource<?> javaSource = DescriptionPluginUtils
-				.readCurrentResource(currentResource);
+				.readCurrentResource(currentResource, javaSourceCache);
 
 		if (!javaSource.isClass()) {
 			throw new IllegalStateException(
@@ -208,7 +225,7 @@ public class AccessPlugin implements Plugin {
 			@Option(name = "enumClass", type = PromptType.JAVA_CLASS, required = true) final String enumClass) {
 		final Resource<?> currentResource = shell.getCurrentResource();
 		JavaSource<?> javaSource = DescriptionPluginUtils
-				.readCurrentResource(currentResource);
+				.readCurrentResource(currentResource, javaSourceCache);
 
 		if (!javaSource.isClass()) {
 			throw new IllegalStateException(
@@ -269,41 +286,131 @@ public class AccessPlugin implements Plugin {
 		final Resource<?> currentResource = shell.getCurrentResource();
 		JavaClass permissionClass = (JavaClass) ((JavaResource) currentResource).getJavaSource();
 		
-		String permissionEntryName = permissionClass.getQualifiedName() + "("+action+")";
-		if(StringUtils.isNotBlank(expression)){
-			permissionEntryName +="("+expression+")";
-		}
+		String permissionEntryName = permissionEntryName(permissionClass.getQualifiedName(), action, expression);
 		/*
 		 * Override property here set to true
 		 */
 		Utils.updatePropertiesFile(toRole, permissionEntryName, "permissions.properties", false, project);
 	}
 	
-	private void saveAndFire(JavaSource<?> source) {
-		final JavaSourceFacet javaSourceFacet = project
-				.getFacet(JavaSourceFacet.class);
+	@Command(value = "import-logins", help = "Imports initial users from a CSV file with the columns userName,password. "
+			+ "Passwords are stored as given; quote a password to keep its leading or trailing blanks.")
+	public void importLogins(final PipeOut out,
+			@Option(name = "file", required = true) String file) throws IOException {
+		long start = System.currentTimeMillis();
+		Map<String, List<String>> logins = new LinkedHashMap<String, List<String>>();
+		CsvReader reader = new CsvReader(Utils.resolveFile(shell, file));
+		int rows = 0;
 		try {
-			javaSourceFacet.saveJavaSource(source);
-			pickup.fire(new PickupResource(javaSourceFacet
-					.getJavaResource(source)));
-		} catch (FileNotFoundException e) {
-			throw new IllegalStateException("The current resource '"
-					+ source.getName() + "' was deleted from the file system.");
+			String[] row;
+			while ((row = reader.readRow(2)) != null) {
+				logins.put(row[0], Collections.singletonList(row[1]));
+				rows++;
+			}
+		} finally {
+			reader.close();
 		}
+		/*
+		 * Override property here set to true
+		 */
+		Utils.updatePropertiesFile(logins, "logins.properties", true, project);
+		reportImport(out, rows, "logins.properties", start);
+	}
 
+	@Command(value = "import-roles", help = "Imports role records from a CSV file with the columns userName,role")
+	public void importRoles(final PipeOut out,
+			@Option(name = "file", required = true) String file) throws IOException {
+		long start = System.currentTimeMillis();
+		Map<String, List<String>> roles = new LinkedHashMap<String, List<String>>();
+		CsvReader reader = new CsvReader(Utils.resolveFile(shell, file));
+		int rows = 0;
+		try {
+			String[] row;
+			while ((row = reader.readRow(2)) != null) {
+				addValue(roles, row[0], row[1]);
+				rows++;
+			}
+		} finally {
+			reader.close();
+		}
+		Utils.updatePropertiesFile(roles, "roles.properties", false, project);
+		reportImport(out, rows, "roles.properties", start);
+	}
+
+	@Command(value = "import-permissions", help = "Imports permissions from a CSV file with the columns toRole,permissionClass,action[,expression]. "
+			+ "A blank permission class stands for the current class.")
+	public void importPermissions(final PipeOut out,
+			@Option(name = "file", required = true) String file) throws IOException {
+		long start = System.currentTimeMillis();
+		Map<String, List<String>> permissions = new LinkedHashMap<String, List<String>>();
+		Map<String, String> qualifiedNames = new HashMap<String, String>();
+		CsvReader reader = new CsvReader(Utils.resolveFile(shell, file));
+		int rows = 0;
+		try {
+			String[] row;
+			while ((row = reader.readRow(3)) != null) {
+				String permissionClass = qualifiedNames.get(row[1]);
+				if (permissionClass == null) {
+					permissionClass = resolvePermissionClass(row[1]);
+					qualifiedNames.put(row[1], permissionClass);
+				}
+				String expression = row.length > 3 ? row[3] : null;
+				addValue(permissions, row[0], permissionEntryName(permissionClass, row[2], expression));
+				rows++;
+			}
+		} finally {
+			reader.close();
+		}
+		Utils.updatePropertiesFile(permissions, "permissions.properties", false, project);
+		reportImport(out, rows, "permissions.properties", start);
+	}
+
+	private String permissionEntryName(String permissionClass, String action, String expression) {
+		String permissionEntryName = permissionClass + "("+action+")";
+		if(StringUtils.isNotBlank(expression)){
+			permissionEntryName +="("+expression+")";
+		}
+		return permissionEntryName;
+	}
+
+	private String resolvePermissionClass(String permissionClass) {
+		if (StringUtils.isBlank(permissionClass)) {
+			JavaSource<?> javaSource = DescriptionPluginUtils.readCurrentResource(shell.getCurrentResource(), javaSourceCache);
+			return javaSource.getQualifiedName();
+		}
+		ProjectSymbolIndex.Symbol symbol = symbolIndex.find(project, permissionClass, Kind.CLASS);
+		if (symbol == null)
+			throw new IllegalStateException("Could not locate the permission class " + permissionClass);
+		return symbol.getQualifiedName();
+	}
+
+	private static void addValue(Map<String, List<String>> values, String key, String value) {
+		List<String> list = values.get(key);
+		if (list == null) {
+			list = new ArrayList<String>();
+			values.put(key, list);
+		}
+		list.add(value);
+	}
+
+	private void reportImport(PipeOut out, int rows, String bundleName, long start) {
+		long duration = Math.max(1, System.currentTimeMillis() - start);
+		ShellMessages.success(out, "Imported " + rows + " rows into " + bundleName + " in "
+				+ duration + " ms (" + (rows * 1000L / duration) + " rows/sec).");
+	}
+
+	private void saveAndFire(JavaSource<?> source) {
+		saveService.saveAndFire(project, source);
 	}
 
 	private JavaEnum findEnum(final String entity) throws FileNotFoundException {
 		JavaEnum result = null;
 
-		PersistenceFacet scaffold = project.getFacet(PersistenceFacet.class);
-		JavaSourceFacet java = project.getFacet(JavaSourceFacet.class);
-
 		if (entity != null) {
-			result = getJavaEnumFrom(java.getJavaResource(entity));
-			if (result == null) {
-				result = getJavaEnumFrom(java.getJavaResource(scaffold
-						.getEntityPackage() + "." + entity));
+			JavaResource javaResource = symbolIndex.findResource(project, entity,
+					Kind.ENUM);
+			if (javaResource != null) {
+				result = getJavaEnumFrom(javaResource);
 			}
 		}
 
@@ -317,47 +424,11 @@ public class AccessPlugin implements Plugin {
 
 	private JavaEnum getJavaEnumFrom(final Resource<?> resource)
 			throws FileNotFoundException {
-		JavaSource<?> source = ((JavaResource) resource).getJavaSource();
+		JavaSource<?> source = DescriptionPluginUtils.readCurrentResource(resource, javaSourceCache);
 		if (!source.isEnum()) {
 			throw new IllegalStateException(
 					"Current resource is not a JavaEnum!");
 		}
 		return (JavaEnum) source;
 	}
-
-	/*
-	 * Will update the resource bundle file. We will us a single file for each
-	 * package.
-	 */
-//	private void updatePropertiesFile(String key, String value,String bundleName, boolean override) {
-//		PropertiesFileResource propertiesFileResource = Utils.getOrCreate(bundleName, project);
-//		String property = propertiesFileResource.getProperty(key);
-//		if(override){
-//			property=value;
-//		} else {
-//			if(StringUtils.isNotBlank(property)){
-//				if(StringUtils.equalsIgnoreCase(value, property)) return;// This value is the only one existing for this key.
-//				if(StringUtils.endsWithIgnoreCase(property, ","+value)) return;
-//				if(StringUtils.startsWithIgnoreCase(property, value+",")) return;
-//				if(StringUtils.containsIgnoreCase(property, ","+value+","))return;
-//				/*
-//				 * Either prefixed or sufixed with a comma
-//				 */
-//				property+=","+value;
-//			} else {
-//				property=value;
-//			}
-//		}
-//		propertiesFileResource.putProperty(key, property);
-//	}
-
-	/**
-	 * Gets another file resource. Creates a file in case it does not exist
-	 * 
-	 * @param bundleName
-	 * @return
-	protected PropertiesFileResource getOrCreate(final String bundleName) {
-		return Utils.getOrCreate(bundleName, project);
-	}
-	 */
 }
@@ -8,6 +8,11 @@ import javax.inject.Inject;
 import org.adorsys.forge.plugins.description.DescriptionFacet;
 import org.adorsys.forge.plugins.description.DescriptionPluginUtils;
 import org.adorsys.forge.plugins.description.JavaClassOrInterface;
+import org.adorsys.forge.plugins.utils.JavaSourceCache;
+import org.adorsys.forge.plugins.utils.ProjectSymbolIndex;
+import org.adorsys.forge.plugins.utils.ProjectSymbolIndex.Kind;
+import org.adorsys.forge.plugins.utils.SaveService;
+import org.adorsys.forge.plugins.utils.Timed;
 import org.adorsys.forge.plugins.utils.Utils;
 import org.adorsys.javaext.compgroup.Grouper;
 import org.jboss.forge.parser.java.EnumConstant;
@@ -15,14 +20,12 @@ import org.jboss.forge.parser.java.JavaClass;
 import org.jboss.forge.parser.java.JavaEnum;
 import org.jboss.forge.parser.java.JavaSource;
 import org.jboss.forge.project.Project;
-import org.jboss.forge.project.facets.JavaSourceFacet;
 import org.jboss.forge.project.facets.events.InstallFacets;
 import org.jboss.forge.resources.Resource;
 import org.jboss.forge.resources.java.JavaResource;
 import org.jboss.forge.shell.PromptType;
 import org.jboss.forge.shell.Shell;
 import org.jboss.forge.shell.ShellMessages;
-import org.jboss.forge.shell.events.PickupResource;
 import org.jboss.forge.shell.plugins.Alias;
 import org.jboss.forge.shell.plugins.Command;
 import org.jboss.forge.shell.plugins.Help;
@@ -32,7 +35,6 @@ import org.jboss.forge.shell.plugins.Plugin;
 import org.jboss.forge.shell.plugins.RequiresFacet;
 import org.jboss.forge.shell.plugins.RequiresProject;
 import org.jboss.forge.shell.plugins.SetupCommand;
-import org.jboss.forge.spec.javaee.PersistenceFacet;
 
 /**
  * 
@@ -43,6 +45,7 @@ import org.jboss.forge.spec.javaee.PersistenceFacet;
 @RequiresProject
 @Help("This plugin will help you add CompGroup adn CompGrouper annotations to entities.")
 @RequiresFacet({ DescriptionFacet.class })
+@Timed
 public class GroupPlugin implements Plugin {
 
 	@Inject
@@ -52,11 +55,17 @@ public class GroupPlugin implements Plugin {
 	private Event<InstallFacets> request;
 
 	@Inject
-	private Event<PickupResource> pickup;
+	private SaveService saveService;
+
+	@Inject
+	private JavaSourceCache javaSourceCache;
 
 	@Inject
 	private Shell shell;
 
+	@Inject
+	private ProjectSymbolIndex symbolIndex;
+
 	@SetupCommand
 	public void setup(final PipeOut out) {
 		if (!project.hasFacet(DescriptionFacet.class)) {
@@ -73,7 +82,7 @@ public class GroupPlugin implements Plugin {
 	@Command(value = "grouper", help = "Makes the current compoent a grouper.")
 	public void newGrouper(final PipeOut out) {
 		final Resource<?> currentResource = shell.getCurrentResource();
-		JavaSource<?> javaSource = DescriptionPluginUtils.readCurrentResource(currentResource);
+		JavaSource<?> javaSource = DescriptionPluginUtils.readCurrentResource(currentResource, javaSourceCache);
 		
 		if (!javaSource.isEnum()) {
 			throw new IllegalStateException("The current resource is not an enum resource");
@@ -96,7 +105,7 @@ public class GroupPlugin implements Plugin {
 		final Resource<?> currentResource = shell.getCurrentResource();
 
 		JavaClassOrInterface javaClassOrInterface = DescriptionPluginUtils
-				.inspectResource(currentResource);
+				.inspectResource(currentResource, javaSourceCache);
 
 		if (!javaClassOrInterface.isClass()) 
 			throw new IllegalStateException("The current resource is not a class.");
@@ -135,33 +144,19 @@ public class GroupPlugin implements Plugin {
 	}
 
 	private void saveAndFire(JavaSource<?> source) {
-		final JavaSourceFacet javaSourceFacet = project
-				.getFacet(JavaSourceFacet.class);
-		try {
-			javaSourceFacet.saveJavaSource(source);
-			pickup.fire(new PickupResource(javaSourceFacet
-					.getJavaResource(source)));
-		} catch (FileNotFoundException e) {
-			throw new IllegalStateException("The current resource '"
-					+ source.getName() + "' was deleted from the file system.");
-		}
-
+		saveService.saveAndFire(project, source);
 	}
 
 	private JavaEnum findEnum(final String enumType)
 			throws FileNotFoundException {
-		PersistenceFacet scaffold = project.getFacet(PersistenceFacet.class);
-		JavaSourceFacet java = project.getFacet(JavaSourceFacet.class);
-		JavaResource javaResource = java.getJavaResource(enumType);
-		if(javaResource==null){
-			javaResource = java.getJavaResource(scaffold.getEntityPackage() + "." + enumType);
-		}
+		JavaResource javaResource = symbolIndex.findResource(project, enumType,
+				Kind.ENUM);
 
 		if (javaResource == null) {
 			throw new FileNotFoundException("Could not locate java enum for input: " + enumType);
 		}
 		
-		JavaSource<?> javaSource = javaResource.getJavaSource();
+		JavaSource<?> javaSource = DescriptionPluginUtils.readCurrentResource(javaResource, javaSourceCache);
 		if(javaSource.isEnum())return (JavaEnum) javaSource;
 		throw new IllegalStateException(enumType + " is not a java enum type");
 	}
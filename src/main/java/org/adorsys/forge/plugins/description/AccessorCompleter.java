@@ -1,59 +1,50 @@
 package org.adorsys.forge.plugins.description;
 
-import java.util.ArrayList;
-import java.util.List;
-
 import javax.inject.Inject;
 
-import org.jboss.forge.parser.java.JavaClass;
-import org.jboss.forge.parser.java.JavaInterface;
-import org.jboss.forge.parser.java.Method;
+import org.adorsys.forge.plugins.utils.CommandStatistics;
 import org.jboss.forge.resources.Resource;
 import org.jboss.forge.shell.Shell;
+import org.jboss.forge.shell.completer.CommandCompleterState;
 import org.jboss.forge.shell.completer.SimpleTokenCompleter;
 
 public class AccessorCompleter extends SimpleTokenCompleter {
-	private static final String GET_PREFIX = "get";
-	private static final String IS_PREFIX = "is";
 
 	private final Shell shell;
 
+	private final AccessorTokenCache accessorTokenCache;
+
+	/*
+	 * The token being completed.
+	 */
+	private String prefix = "";
+
 	@Inject
-	public AccessorCompleter(Shell shell) {
+	public AccessorCompleter(Shell shell, AccessorTokenCache accessorTokenCache) {
 		this.shell = shell;
+		this.accessorTokenCache = accessorTokenCache;
 	}
 
 	@Override
-	public List<String> getCompletionTokens() {
-		final List<String> tokens = new ArrayList<String>();
-		final Resource<?> currentResource = shell.getCurrentResource();
+	public void complete(CommandCompleterState state) {
+		String buffer = state.getBuffer();
+		prefix = buffer == null ? "" : buffer.substring(buffer.lastIndexOf(' ') + 1);
+		super.complete(state);
+	}
 
-		JavaClassOrInterface javaClassOrInterface = DescriptionPluginUtils
-				.inspectResource(currentResource);
-		if (javaClassOrInterface.isClass()) {
-			JavaClass javaClass = javaClassOrInterface.getJavaClass();
-			List<Method<JavaClass>> methods = javaClass.getMethods();
-			for (Method<JavaClass> method : methods) {
-				String methodName = method.getName();
-				if (methodName == null)
-					continue;
-				if (methodName.startsWith(IS_PREFIX)
-						|| methodName.startsWith(GET_PREFIX))
-					tokens.add(methodName);
-			}
-		} else if (javaClassOrInterface.isInterface()) {
-			JavaInterface javaInterface = javaClassOrInterface
-					.getJavaInterface();
-			List<Method<JavaInterface>> methods = javaInterface.getMethods();
-			for (Method<JavaInterface> method : methods) {
-				String methodName = method.getName();
-				if (methodName == null)
-					continue;
-				if (methodName.startsWith(IS_PREFIX)
-						|| methodName.startsWith(GET_PREFIX))
-					tokens.add(methodName);
-			}
+	/*
+	 * The tokens are cached per class and already sorted, only those starting
+	 * with the token being completed are handed to the prefix matching of
+	 * the shell.
+	 */
+	@Override
+	public Iterable<String> getCompletionTokens() {
+		final Resource<?> currentResource = shell.getCurrentResource();
+		CommandStatistics.Probe probe = CommandStatistics.get().startCompletion(getClass());
+		try {
+			return accessorTokenCache.getAccessors(currentResource, prefix);
+		} finally {
+			probe.end(0);
 		}
-		return tokens;
 	}
 }
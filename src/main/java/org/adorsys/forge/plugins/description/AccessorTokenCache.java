@@ -0,0 +1,131 @@
+package org.adorsys.forge.plugins.description;
+
+import java.io.File;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedSet;
+import java.util.TreeSet;
+
+import javax.enterprise.event.Observes;
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+import org.adorsys.forge.plugins.utils.JavaSourceCache;
+import org.adorsys.forge.plugins.utils.Utils;
+import org.jboss.forge.parser.java.JavaClass;
+import org.jboss.forge.parser.java.JavaInterface;
+import org.jboss.forge.parser.java.Method;
+import org.jboss.forge.resources.Resource;
+import org.jboss.forge.resources.java.JavaResource;
+import org.jboss.forge.shell.events.PickupResource;
+
+/**
+ * Keeps the sorted accessor names of each class or interface visited by the
+ * {@link AccessorCompleter}. The tokens of a class are dropped as soon as a
+ * plugin picks up its resource after a save.
+ *
+ * @author francis pouatcha
+ *
+ */
+@Singleton
+public class AccessorTokenCache {
+	private static final String GET_PREFIX = "get";
+	private static final String IS_PREFIX = "is";
+
+	private final JavaSourceCache javaSourceCache;
+
+	private final Map<String, Tokens> tokensByFile = new HashMap<String, Tokens>();
+
+	@Inject
+	public AccessorTokenCache(JavaSourceCache javaSourceCache) {
+		this.javaSourceCache = javaSourceCache;
+	}
+
+	/**
+	 * Returns the sorted accessor names of the class or interface holding the
+	 * given resource.
+	 */
+	public SortedSet<String> getAccessors(Resource<?> resource) {
+		File file = getSourceFile(resource);
+		if (file == null)
+			return readAccessors(resource);
+		String key = file.getAbsolutePath();
+		synchronized (this) {
+			Tokens tokens = tokensByFile.get(key);
+			if (tokens != null && tokens.lastModified == file.lastModified())
+				return tokens.accessors;
+		}
+		SortedSet<String> accessors = readAccessors(resource);
+		synchronized (this) {
+			tokensByFile.put(key, new Tokens(accessors, file.lastModified()));
+		}
+		return accessors;
+	}
+
+	/**
+	 * Returns the accessor names of the class or interface holding the given
+	 * resource starting with the given prefix, as a view of the sorted
+	 * tokens.
+	 */
+	public SortedSet<String> getAccessors(Resource<?> resource, String prefix) {
+		SortedSet<String> accessors = getAccessors(resource);
+		if (prefix == null || prefix.length() == 0)
+			return accessors;
+		return accessors.subSet(prefix, prefix + Character.MAX_VALUE);
+	}
+
+	public void onPickup(@Observes PickupResource event) {
+		File file = getSourceFile(event.getResource());
+		if (file == null)
+			return;
+		synchronized (this) {
+			tokensByFile.remove(file.getAbsolutePath());
+		}
+	}
+
+	private SortedSet<String> readAccessors(Resource<?> resource) {
+		TreeSet<String> tokens = new TreeSet<String>();
+		JavaClassOrInterface javaClassOrInterface = DescriptionPluginUtils
+				.inspectResource(resource, javaSourceCache);
+		if (javaClassOrInterface.isClass()) {
+			JavaClass javaClass = javaClassOrInterface.getJavaClass();
+			List<Method<JavaClass>> methods = javaClass.getMethods();
+			for (Method<JavaClass> method : methods) {
+				addAccessor(tokens, method.getName());
+			}
+		} else if (javaClassOrInterface.isInterface()) {
+			JavaInterface javaInterface = javaClassOrInterface
+					.getJavaInterface();
+			List<Method<JavaInterface>> methods = javaInterface.getMethods();
+			for (Method<JavaInterface> method : methods) {
+				addAccessor(tokens, method.getName());
+			}
+		}
+		return Collections.unmodifiableSortedSet(tokens);
+	}
+
+	private static void addAccessor(TreeSet<String> tokens, String methodName) {
+		if (methodName == null)
+			return;
+		if (methodName.startsWith(IS_PREFIX)
+				|| methodName.startsWith(GET_PREFIX))
+			tokens.add(methodName);
+	}
+
+	private static File getSourceFile(Resource<?> resource) {
+		JavaResource javaResource = Utils.getJavaResource(resource);
+		return javaResource == null ? null : javaResource.getUnderlyingResourceObject();
+	}
+
+	private static class Tokens {
+		private final SortedSet<String> accessors;
+		private final long lastModified;
+
+		Tokens(SortedSet<String> accessors, long lastModified) {
+			this.accessors = accessors;
+			this.lastModified = lastModified;
+		}
+	}
+}
@@ -0,0 +1,27 @@
+package org.adorsys.forge.plugins.description;
+
+import org.jboss.forge.parser.java.JavaClass;
+
+/**
+ * Commands of other plugins a {@link DescriptionBatch} can run on a class,
+ * so that the description package does not depend on those plugins.
+ * Implementations are registered as services in
+ * META-INF/services/org.adorsys.forge.plugins.description.BatchCommands.
+ *
+ * @author francis pouatcha
+ *
+ */
+public interface BatchCommands {
+
+	/**
+	 * Tells if the command, without plugin name, is one of these commands.
+	 */
+	boolean supports(String command);
+
+	/**
+	 * Applies the operation to the parsed class without saving it.
+	 *
+	 * @return true if the class was modified and has to be saved.
+	 */
+	boolean apply(JavaClass javaClass, DescriptionBatch.Operation operation);
+}
@@ -0,0 +1,88 @@
+package org.adorsys.forge.plugins.description;
+
+import java.io.File;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.adorsys.forge.plugins.utils.BundleSession;
+import org.adorsys.forge.plugins.utils.PropertiesFileWriter;
+
+/**
+ * Removes the orphaned keys found by the {@link DescriptionVerifier} from the
+ * description bundles. Each bundle is rewritten once.
+ *
+ * @author francis pouatcha
+ *
+ */
+public class BundleCollector {
+
+	private int bundles;
+	private int keys;
+	private long bytesReclaimed;
+
+	/**
+	 * Removes the title and text entries of the orphaned keys.
+	 *
+	 * @param dryRun
+	 *            if true, the bundles are not written; the reclaimed bytes are
+	 *            computed from the content the {@link PropertiesFileWriter}
+	 *            would write.
+	 */
+	public void collect(List<DescriptionVerifier.Issue> issues, boolean dryRun) {
+		Map<File, Set<String>> orphansByBundle = new LinkedHashMap<File, Set<String>>();
+		for (DescriptionVerifier.Issue issue : issues) {
+			if (issue.getType() != DescriptionVerifier.IssueType.ORPHAN)
+				continue;
+			Set<String> orphans = orphansByBundle.get(issue.getBundleFile());
+			if (orphans == null) {
+				orphans = new TreeSet<String>();
+				orphansByBundle.put(issue.getBundleFile(), orphans);
+			}
+			orphans.add(issue.getKey());
+		}
+
+		for (Entry<File, Set<String>> entry : orphansByBundle.entrySet()) {
+			File bundleFile = entry.getKey();
+			final Set<String> orphans = entry.getValue();
+			long length = bundleFile.length();
+			PropertiesFileWriter.Update removal = new PropertiesFileWriter.Update() {
+				@Override
+				public boolean apply(Properties properties) {
+					boolean changed = false;
+					for (String key : orphans) {
+						changed |= properties.remove(key + DescriptionPlugin.DOT_CONSTANT + DescriptionPlugin.TITLE_SUFFIX) != null;
+						changed |= properties.remove(key + DescriptionPlugin.DOT_CONSTANT + DescriptionPlugin.TEXT_SUFFIX) != null;
+					}
+					return changed;
+				}
+			};
+			if (dryRun) {
+				Properties properties = BundleSession.load(bundleFile);
+				if (removal.apply(properties))
+					bytesReclaimed += length - PropertiesFileWriter.size(properties);
+			} else {
+				PropertiesFileWriter.update(bundleFile, removal);
+				bytesReclaimed += length - bundleFile.length();
+			}
+			keys += orphans.size();
+			bundles++;
+		}
+	}
+
+	public int getBundles() {
+		return bundles;
+	}
+
+	public int getKeys() {
+		return keys;
+	}
+
+	public long getBytesReclaimed() {
+		return bytesReclaimed;
+	}
+}
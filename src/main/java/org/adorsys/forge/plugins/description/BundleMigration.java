@@ -0,0 +1,173 @@
+package org.adorsys.forge.plugins.description;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Properties;
+
+import org.adorsys.forge.plugins.utils.BundleSession;
+
+/**
+ * Merges the description bundles of one {@link BundleStrategy} into the
+ * layout of a coarser strategy in a single pass: every existing bundle is
+ * read once, every target bundle is written once and the merged bundles are
+ * deleted. Only the files named after a class or the bundle base name,
+ * optionally followed by a locale, are bundles; other properties files are
+ * left alone.
+ *
+ * @author francis pouatcha
+ *
+ */
+public class BundleMigration {
+
+	private static final String JAVA_EXTENSION = ".java";
+
+	private final File sourceFolder;
+	private final File resourceFolder;
+
+	private int bundlesRead;
+	private int bundlesWritten;
+	private int keys;
+	private final List<File> deletedBundles = new ArrayList<File>();
+
+	public BundleMigration(File sourceFolder, File resourceFolder) {
+		this.sourceFolder = sourceFolder;
+		this.resourceFolder = resourceFolder;
+	}
+
+	public void migrate(BundleStrategy from, BundleStrategy to) {
+		if (from == to)
+			return;
+		if (!from.canMigrateTo(to))
+			throw new IllegalStateException("Bundles of the strategy " + from
+					+ " can not be split into bundles of the strategy " + to);
+
+		List<File> bundles = new ArrayList<File>();
+		Map<File, Properties> targets = new LinkedHashMap<File, Properties>();
+		collect(resourceFolder, "", from, to, bundles, targets);
+
+		for (Entry<File, Properties> target : targets.entrySet()) {
+			BundleSession.store(target.getKey(), target.getValue());
+			bundlesWritten++;
+		}
+		for (File bundle : bundles) {
+			if (!targets.containsKey(bundle) && bundle.delete())
+				deletedBundles.add(bundle);
+		}
+	}
+
+	private void collect(File directory, String packageName,
+			BundleStrategy from, BundleStrategy to, List<File> bundles,
+			Map<File, Properties> targets) {
+		File[] children = directory.listFiles();
+		if (children == null)
+			return;
+		List<String> classNames = from == BundleStrategy.CLASS ? listClassNames(packageName)
+				: null;
+		for (File child : children) {
+			if (child.isDirectory()) {
+				collect(child, packageName.length() == 0 ? child.getName()
+						: packageName + "." + child.getName(), from, to,
+						bundles, targets);
+				continue;
+			}
+			String name = child.getName();
+			if (!name.endsWith(BundleStrategy.PROPERTIES_EXTENSION))
+				continue;
+			String baseName = name.substring(0, name.length()
+					- BundleStrategy.PROPERTIES_EXTENSION.length());
+			String klassSimpleName = null;
+			if (from == BundleStrategy.CLASS) {
+				klassSimpleName = longestPrefix(baseName, classNames);
+			} else if ((from == BundleStrategy.MODULE) == (packageName.length() == 0)
+					&& isBundleOf(baseName, BundleStrategy.BUNDLE_BASE_NAME)) {
+				klassSimpleName = BundleStrategy.BUNDLE_BASE_NAME;
+			}
+			if (klassSimpleName == null)
+				continue;
+			String locale = baseName.length() > klassSimpleName.length() ? baseName
+					.substring(klassSimpleName.length() + 1) : null;
+
+			File target = new File(resourceFolder, to.getBundlePath(packageName,
+					klassSimpleName, locale));
+			Properties targetProperties = targets.get(target);
+			if (targetProperties == null) {
+				targetProperties = BundleSession.load(target);
+				targets.put(target, targetProperties);
+			}
+			Properties properties = BundleSession.load(child);
+			bundlesRead++;
+			for (String key : properties.stringPropertyNames()) {
+				String existing = targetProperties.getProperty(key);
+				if (existing == null || existing.trim().length() == 0) {
+					targetProperties.setProperty(key, properties.getProperty(key));
+					keys++;
+				}
+			}
+			bundles.add(child);
+		}
+	}
+
+	/*
+	 * Names of the classes of a package, read from the source folder.
+	 */
+	private List<String> listClassNames(String packageName) {
+		List<String> classNames = new ArrayList<String>();
+		File packageFolder = new File(sourceFolder, packageName.replace(".",
+				File.separator));
+		String[] names = packageFolder.list();
+		if (names == null)
+			return classNames;
+		for (String name : names) {
+			if (name.endsWith(JAVA_EXTENSION))
+				classNames.add(name.substring(0, name.length()
+						- JAVA_EXTENSION.length()));
+		}
+		return classNames;
+	}
+
+	private static String longestPrefix(String baseName, List<String> classNames) {
+		String result = null;
+		for (String className : classNames) {
+			if (!isBundleOf(baseName, className))
+				continue;
+			if (result == null || className.length() > result.length())
+				result = className;
+		}
+		return result;
+	}
+
+	/*
+	 * The base name of the bundle is the given name, optionally followed by
+	 * a locale.
+	 */
+	private static boolean isBundleOf(String baseName, String name) {
+		if (baseName.equals(name))
+			return true;
+		return baseName.startsWith(name + "_")
+				&& DescriptionVerifier.LOCALE_PATTERN.matcher(
+						baseName.substring(name.length() + 1)).matches();
+	}
+
+	public int getBundlesRead() {
+		return bundlesRead;
+	}
+
+	public int getBundlesWritten() {
+		return bundlesWritten;
+	}
+
+	public int getKeys() {
+		return keys;
+	}
+
+	/**
+	 * @return the merged bundles deleted by the migration.
+	 */
+	public List<File> getDeletedBundles() {
+		return deletedBundles;
+	}
+}
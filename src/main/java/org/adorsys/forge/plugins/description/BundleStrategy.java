@@ -0,0 +1,69 @@
+package org.adorsys.forge.plugins.description;
+
+import java.io.File;
+
+import org.adorsys.forge.plugins.utils.BundleSession;
+
+/**
+ * Layout of the description bundles in the resource folder.
+ * 
+ * @author francis pouatcha
+ * 
+ */
+public enum BundleStrategy {
+	/**
+	 * One bundle per class, named after the class: org/adorsys/Person_fr.properties
+	 */
+	CLASS,
+	/**
+	 * One bundle per package: org/adorsys/descriptions_fr.properties
+	 */
+	PACKAGE,
+	/**
+	 * One bundle for the whole module: descriptions_fr.properties
+	 */
+	MODULE;
+
+	public static final String BUNDLE_BASE_NAME = "descriptions";
+	public static final String PROPERTIES_EXTENSION = ".properties";
+	public static final String DESCRIPTION_PROPERTIES = "description.properties";
+
+	/**
+	 * Reads the strategy from the description.properties file of the
+	 * resource folder. Defaults to one bundle per class.
+	 */
+	public static BundleStrategy read(File resourceFolder) {
+		String strategy = BundleSession.load(new File(resourceFolder, DESCRIPTION_PROPERTIES))
+				.getProperty(DescriptionPluginUtils.BUNDLE_STRATEGY_KEY);
+		if (strategy == null || strategy.trim().length() == 0)
+			return CLASS;
+		return valueOf(strategy.trim());
+	}
+
+	/**
+	 * Returns the path of the bundle holding the keys of the given class,
+	 * relative to the resource folder.
+	 */
+	public String getBundlePath(String packageName, String klassSimpleName,
+			String locale) {
+		String localeSuffix = locale != null ? "_" + locale : "";
+		switch (this) {
+		case MODULE:
+			return BUNDLE_BASE_NAME + localeSuffix + PROPERTIES_EXTENSION;
+		case PACKAGE:
+			return packageName.replace(".", File.separator) + File.separator
+					+ BUNDLE_BASE_NAME + localeSuffix + PROPERTIES_EXTENSION;
+		default:
+			return packageName.replace(".", File.separator) + File.separator
+					+ klassSimpleName + localeSuffix + PROPERTIES_EXTENSION;
+		}
+	}
+
+	/**
+	 * Tells if the keys of a bundle of this strategy can be merged into the
+	 * bundles of the given strategy without being split.
+	 */
+	public boolean canMigrateTo(BundleStrategy target) {
+		return target.ordinal() >= ordinal();
+	}
+}
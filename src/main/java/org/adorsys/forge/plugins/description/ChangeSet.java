@@ -0,0 +1,158 @@
+package org.adorsys.forge.plugins.description;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.adorsys.forge.plugins.utils.BundleSession;
+import org.adorsys.forge.plugins.utils.SaveService;
+import org.adorsys.forge.plugins.utils.Utils;
+import org.jboss.forge.parser.java.JavaSource;
+
+/**
+ * The result of a {@link DescriptionService} operation: the modified sources
+ * and the buffered bundle entries. Nothing is written until the change set is
+ * applied, either by {@link #apply(File)} or by a caller saving the sources
+ * its own way and flushing the {@link BundleSession}.
+ *
+ * @author francis pouatcha
+ *
+ */
+public class ChangeSet {
+
+	private static final String JAVA_EXTENSION = ".java";
+
+	/*
+	 * Parsed models have no identity beyond the instance.
+	 */
+	private final Set<JavaSource<?>> sources = Collections.newSetFromMap(new IdentityHashMap<JavaSource<?>, Boolean>());
+	private final BundleSession bundleSession;
+	private final Map<File, Set<String>> keys = new HashMap<File, Set<String>>();
+
+	private int scanned;
+	private int skipped;
+	private int sourcesWritten;
+	private int bundlesWritten;
+
+	public ChangeSet(BundleSession bundleSession) {
+		this.bundleSession = bundleSession;
+	}
+
+	public synchronized void addSource(JavaSource<?> source) {
+		sources.add(source);
+	}
+
+	/**
+	 * @return the modified sources.
+	 */
+	public synchronized List<JavaSource<?>> getSources() {
+		return new ArrayList<JavaSource<?>>(sources);
+	}
+
+	public BundleSession getBundleSession() {
+		return bundleSession;
+	}
+
+	public synchronized boolean isEmpty() {
+		return sources.isEmpty() && bundleSession.isEmpty();
+	}
+
+	/**
+	 * Writes the modified sources to their file in the given source folder,
+	 * only if the content changes, and flushes the bundles.
+	 */
+	public synchronized void apply(File sourceFolder) {
+		for (JavaSource<?> source : sources) {
+			File file = new File(sourceFolder, source.getQualifiedName().replace(".", File.separator)
+					+ JAVA_EXTENSION);
+			byte[] content = SaveService.encode(source.toString());
+			if (file.exists() && Arrays.equals(SaveService.hash(content), SaveService.hash(file)))
+				continue;
+			write(file, content);
+			sourcesWritten++;
+		}
+		sources.clear();
+		flushBundles();
+	}
+
+	/**
+	 * Writes the buffered bundle entries, for callers saving the sources
+	 * themselves.
+	 *
+	 * @return the number of bundle files written.
+	 */
+	public synchronized int flushBundles() {
+		int written = bundleSession.flush();
+		bundlesWritten += written;
+		return written;
+	}
+
+	/**
+	 * Counts the sources written by a caller saving them itself.
+	 */
+	public synchronized void addSourcesWritten(int written) {
+		sourcesWritten += written;
+	}
+
+	public synchronized int getScanned() {
+		return scanned;
+	}
+
+	synchronized void setScanned(int scanned) {
+		this.scanned = scanned;
+	}
+
+	/**
+	 * @return the number of sources skipped because they did not change.
+	 */
+	public synchronized int getSkipped() {
+		return skipped;
+	}
+
+	synchronized void setSkipped(int skipped) {
+		this.skipped = skipped;
+	}
+
+	/**
+	 * @return the bundle keys of the processed source files, if collected.
+	 */
+	public synchronized Map<File, Set<String>> getKeys() {
+		return new HashMap<File, Set<String>>(keys);
+	}
+
+	synchronized void setKeys(File file, Set<String> sourceKeys) {
+		keys.put(file, sourceKeys);
+	}
+
+	public synchronized int getSourcesWritten() {
+		return sourcesWritten;
+	}
+
+	public synchronized int getBundlesWritten() {
+		return bundlesWritten;
+	}
+
+	private static void write(File file, byte[] content) {
+		File parent = file.getParentFile();
+		if (parent != null && !parent.exists())
+			parent.mkdirs();
+		OutputStream out = null;
+		try {
+			out = new FileOutputStream(file);
+			out.write(content);
+		} catch (IOException e) {
+			throw new IllegalStateException("Could not write the source file '" + file + "'", e);
+		} finally {
+			Utils.closeQuietly(out);
+		}
+	}
+}
@@ -0,0 +1,104 @@
+package org.adorsys.forge.plugins.description;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.annotation.Annotation;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.adorsys.forge.plugins.utils.CsvReader;
+import org.adorsys.forge.plugins.utils.Utils;
+import org.apache.commons.lang3.StringUtils;
+
+/**
+ * The messages of several constraints of a field, in the order the
+ * constraints were added. A constraint without message only gets its key.
+ *
+ * @author francis pouatcha
+ *
+ */
+public class ConstraintMessages {
+
+	private static final String SEPARATOR = ":";
+
+	private final Map<Class<? extends Annotation>, List<LocalizedText>> messages = new LinkedHashMap<Class<? extends Annotation>, List<LocalizedText>>();
+
+	/**
+	 * Adds a constraint given by its simple name, ignoring case.
+	 */
+	public void addConstraint(String simpleName) {
+		getTexts(simpleName);
+	}
+
+	/**
+	 * Adds the message of a constraint in a locale.
+	 */
+	public void addMessage(String simpleName, LocalizedText text) {
+		getTexts(simpleName).add(text);
+	}
+
+	/**
+	 * Parses a value of the form constraint:locale:title:text, see
+	 * {@link LocalizedText#parse(String)}.
+	 */
+	public void parse(String value) {
+		String[] parts = value.split(SEPARATOR, 2);
+		if (parts.length < 2)
+			throw new IllegalStateException("The value '" + value
+					+ "' is not of the form constraint:locale:title[:text]");
+		addMessage(parts[0], LocalizedText.parse(parts[1]));
+	}
+
+	/**
+	 * Reads the rows of a file of the form constraint,locale,title[,text].
+	 */
+	public void read(File file) throws IOException {
+		CsvReader reader = new CsvReader(file);
+		try {
+			String[] row;
+			while ((row = reader.readRow(3)) != null) {
+				addMessage(row[0], new LocalizedText(row[1], emptyToNull(row[2]),
+						row.length > 3 ? emptyToNull(row[3]) : null));
+			}
+		} finally {
+			Utils.closeQuietly(reader);
+		}
+	}
+
+	public boolean isEmpty() {
+		return messages.isEmpty();
+	}
+
+	/**
+	 * @return the texts of each constraint; constraints without message map
+	 *         to a single text creating the keys in the default bundle.
+	 */
+	public Map<Class<? extends Annotation>, List<LocalizedText>> getMessages() {
+		Map<Class<? extends Annotation>, List<LocalizedText>> result = new LinkedHashMap<Class<? extends Annotation>, List<LocalizedText>>();
+		for (Map.Entry<Class<? extends Annotation>, List<LocalizedText>> entry : messages.entrySet()) {
+			List<LocalizedText> texts = entry.getValue();
+			result.put(entry.getKey(), texts.isEmpty() ? Collections.singletonList(new LocalizedText(null, null, null))
+					: Collections.unmodifiableList(texts));
+		}
+		return result;
+	}
+
+	private List<LocalizedText> getTexts(String simpleName) {
+		Class<? extends Annotation> constraint = DescriptionEditor.getConstraint(simpleName);
+		if (constraint == null)
+			throw new IllegalStateException("The constraint '" + simpleName + "' is not supported.");
+		List<LocalizedText> texts = messages.get(constraint);
+		if (texts == null) {
+			texts = new ArrayList<LocalizedText>();
+			messages.put(constraint, texts);
+		}
+		return texts;
+	}
+
+	private static String emptyToNull(String value) {
+		return StringUtils.isEmpty(value) ? null : value;
+	}
+}
@@ -0,0 +1,287 @@
+package org.adorsys.forge.plugins.description;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.ServiceLoader;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.adorsys.forge.plugins.utils.CommandStatistics;
+import org.adorsys.forge.plugins.utils.CommandStatistics.Phase;
+import org.adorsys.forge.plugins.utils.CommandStatistics.Probe;
+import org.adorsys.forge.plugins.utils.CsvReader;
+import org.adorsys.forge.plugins.utils.JavaSourceScanner;
+import org.adorsys.forge.plugins.utils.ProjectSymbolIndex;
+import org.adorsys.forge.plugins.utils.ProjectSymbolIndex.Kind;
+import org.adorsys.forge.plugins.utils.SaveService;
+import org.adorsys.forge.plugins.utils.Utils;
+import org.apache.commons.lang3.StringUtils;
+import org.jboss.forge.parser.java.JavaClass;
+import org.jboss.forge.parser.java.JavaSource;
+import org.jboss.forge.project.Project;
+
+/**
+ * Runs the description, display and format commands of a batch file. Each
+ * line of the file holds one command:
+ *
+ * <pre>
+ * class,member,command[,option=value...]
+ * org.example.Customer,name,add-field-description,title=Name,text=The customer name,locale=fr
+ * Customer,,add-class-description,title=Customer
+ * Customer,birthDate,add-date-pattern,pattern=dd.MM.yyyy
+ * </pre>
+ *
+ * The class is a simple or qualified name, the member the property or
+ * accessor the command applies to. The commands of other plugins are run by
+ * the {@link BatchCommands} services. Operations are grouped by class: each
+ * class is parsed once, all its operations are applied to the same model and
+ * it is saved once. Bundle entries are written once at the end of the run.
+ *
+ * @author francis pouatcha
+ *
+ */
+public class DescriptionBatch {
+
+	private static final String COMMAND_PREFIX = "add-";
+	private static final String MESSAGE_SUFFIX = "-message";
+	private static final String OPTION_PREFIX = "--";
+
+	private static final List<BatchCommands> BATCH_COMMANDS = loadBatchCommands();
+
+	private final Map<String, List<Operation>> operations = new LinkedHashMap<String, List<Operation>>();
+	private int operationCount;
+	private int classCount;
+
+	private long parseMillis;
+	private long mutateMillis;
+	private long writeMillis;
+	private int sourcesWritten;
+	private int bundlesWritten;
+
+	/**
+	 * Reads the operations of the file and groups them by class.
+	 */
+	public static DescriptionBatch read(File file) throws IOException {
+		DescriptionBatch batch = new DescriptionBatch();
+		CsvReader reader = new CsvReader(file);
+		try {
+			String[] row;
+			while ((row = reader.readRow(3)) != null) {
+				batch.add(new Operation(reader.getLineNumber(), row));
+			}
+		} finally {
+			Utils.closeQuietly(reader);
+		}
+		return batch;
+	}
+
+	public void add(Operation operation) {
+		List<Operation> classOperations = operations.get(operation.className);
+		if (classOperations == null) {
+			classOperations = new ArrayList<Operation>();
+			operations.put(operation.className, classOperations);
+		}
+		classOperations.add(operation);
+		operationCount++;
+	}
+
+	/**
+	 * Parses the target classes in parallel, applies the operations of each
+	 * class to its model, then saves the modified classes and writes the
+	 * bundles of the editor.
+	 */
+	public void run(Project project, ProjectSymbolIndex symbolIndex,
+			DescriptionEditor editor, SaveService saveService) {
+		long start = System.currentTimeMillis();
+		/*
+		 * Simple and qualified names of the same class share one model.
+		 */
+		Map<File, List<Operation>> operationsByFile = new LinkedHashMap<File, List<Operation>>();
+		for (Entry<String, List<Operation>> entry : operations.entrySet()) {
+			String className = entry.getKey();
+			ProjectSymbolIndex.Symbol symbol = symbolIndex.find(project, className, Kind.CLASS);
+			if (symbol == null)
+				symbol = symbolIndex.find(project, className, Kind.INTERFACE);
+			if (symbol == null)
+				throw new IllegalStateException("Line " + entry.getValue().get(0).lineNumber
+						+ ": could not locate the class or interface " + className);
+			List<Operation> fileOperations = operationsByFile.get(symbol.getFile());
+			if (fileOperations == null) {
+				fileOperations = new ArrayList<Operation>();
+				operationsByFile.put(symbol.getFile(), fileOperations);
+			}
+			fileOperations.addAll(entry.getValue());
+		}
+		classCount = operationsByFile.size();
+		final Map<File, JavaSource<?>> sources = new ConcurrentHashMap<File, JavaSource<?>>();
+		JavaSourceScanner.scan(new ArrayList<File>(operationsByFile.keySet()), new JavaSourceScanner.Visitor() {
+			@Override
+			public void visit(File file, JavaSource<?> javaSource) {
+				sources.put(file, javaSource);
+			}
+		});
+		long parsed = System.currentTimeMillis();
+		parseMillis = parsed - start;
+
+		List<JavaSource<?>> modifiedSources = new ArrayList<JavaSource<?>>();
+		for (Entry<File, List<Operation>> entry : operationsByFile.entrySet()) {
+			JavaSource<?> javaSource = sources.get(entry.getKey());
+			boolean modified = false;
+			Probe probe = CommandStatistics.get().start(Phase.MUTATE, javaSource.getQualifiedName());
+			for (Operation operation : entry.getValue()) {
+				modified |= apply(javaSource, operation, editor);
+			}
+			probe.end(0);
+			if (modified)
+				modifiedSources.add(javaSource);
+		}
+		long mutated = System.currentTimeMillis();
+		mutateMillis = mutated - parsed;
+
+		for (JavaSource<?> javaSource : modifiedSources) {
+			if (saveService.save(project, javaSource) != null)
+				sourcesWritten++;
+		}
+		bundlesWritten = editor.getGenerator().getBundleSession().flush();
+		writeMillis = System.currentTimeMillis() - mutated;
+	}
+
+	private static boolean apply(JavaSource<?> javaSource, Operation operation,
+			DescriptionEditor editor) {
+		String command = operation.command;
+		String title = operation.getOption("title");
+		String text = operation.getOption("text");
+		String locale = operation.getOption("locale");
+		try {
+			if ("add-class-description".equals(command)) {
+				return editor.addClassDescription(javaSource, locale, title, text);
+			} else if ("add-field-description".equals(command)) {
+				return editor.addFieldDescription(getJavaClass(javaSource), operation.getMember(), locale, title, text);
+			} else if ("add-accessor-description".equals(command)) {
+				return editor.addAccessorDescription(javaSource, operation.getMember(), locale, title, text);
+			} else if (command.startsWith(COMMAND_PREFIX) && command.endsWith(MESSAGE_SUFFIX)
+					&& command.length() > COMMAND_PREFIX.length() + MESSAGE_SUFFIX.length()) {
+				Class<? extends java.lang.annotation.Annotation> constraint = DescriptionEditor.getConstraint(command
+						.substring(COMMAND_PREFIX.length(), command.length() - MESSAGE_SUFFIX.length()));
+				if (constraint != null)
+					return editor.addValidationMessage(getJavaClass(javaSource), operation.getMember(),
+							constraint, locale, title, text);
+			}
+			for (BatchCommands batchCommands : BATCH_COMMANDS) {
+				if (batchCommands.supports(command))
+					return batchCommands.apply(getJavaClass(javaSource), operation);
+			}
+		} catch (RuntimeException e) {
+			throw new IllegalStateException("Line " + operation.lineNumber + ": " + e.getMessage(), e);
+		}
+		throw new IllegalStateException("Line " + operation.lineNumber + ": unknown command " + command);
+	}
+
+	private static List<BatchCommands> loadBatchCommands() {
+		List<BatchCommands> batchCommands = new ArrayList<BatchCommands>();
+		for (BatchCommands commands : ServiceLoader.load(BatchCommands.class,
+				DescriptionBatch.class.getClassLoader())) {
+			batchCommands.add(commands);
+		}
+		return batchCommands;
+	}
+
+	private static JavaClass getJavaClass(JavaSource<?> javaSource) {
+		if (!javaSource.isClass())
+			throw new IllegalStateException("The resource '" + javaSource.getName() + "' is not a class.");
+		return (JavaClass) javaSource;
+	}
+
+	/**
+	 * @return the number of distinct classes of the last run.
+	 */
+	public int getClassCount() {
+		return classCount;
+	}
+
+	public int getOperationCount() {
+		return operationCount;
+	}
+
+	public long getParseMillis() {
+		return parseMillis;
+	}
+
+	public long getMutateMillis() {
+		return mutateMillis;
+	}
+
+	public long getWriteMillis() {
+		return writeMillis;
+	}
+
+	public int getSourcesWritten() {
+		return sourcesWritten;
+	}
+
+	public int getBundlesWritten() {
+		return bundlesWritten;
+	}
+
+	/**
+	 * One line of a batch file.
+	 */
+	public static class Operation {
+		private final int lineNumber;
+		private final String className;
+		private final String member;
+		private final String command;
+		private final Map<String, String> options = new LinkedHashMap<String, String>();
+
+		public Operation(int lineNumber, String[] row) {
+			this.lineNumber = lineNumber;
+			this.className = row[0];
+			this.member = row[1];
+			/*
+			 * Accepts the command as written in scripts, with the plugin name.
+			 */
+			this.command = StringUtils.substringAfterLast(" " + row[2].trim(), " ");
+			for (int i = 3; i < row.length; i++) {
+				String option = row[i];
+				if (option.length() == 0)
+					continue;
+				int separator = option.indexOf('=');
+				if (separator < 0)
+					throw new IllegalStateException("Line " + lineNumber + ": option '" + option
+							+ "' is not of the form name=value");
+				String name = option.substring(0, separator).trim();
+				if (name.startsWith(OPTION_PREFIX))
+					name = name.substring(OPTION_PREFIX.length());
+				options.put(name, option.substring(separator + 1).trim());
+			}
+			if (StringUtils.isBlank(className))
+				throw new IllegalStateException("Line " + lineNumber + ": the class is missing");
+		}
+
+		public String getCommand() {
+			return command;
+		}
+
+		public String getMember() {
+			if (StringUtils.isBlank(member))
+				throw new IllegalStateException("the command " + command + " needs a member");
+			return member;
+		}
+
+		public String getOption(String name) {
+			String value = options.get(name);
+			return StringUtils.isBlank(value) ? null : value;
+		}
+
+		public String getRequiredOption(String name) {
+			String value = getOption(name);
+			if (value == null)
+				throw new IllegalStateException("the command " + command + " needs the option " + name);
+			return value;
+		}
+	}
+}
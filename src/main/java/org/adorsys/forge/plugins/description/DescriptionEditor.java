@@ -0,0 +1,328 @@
+package org.adorsys.forge.plugins.description;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import javax.validation.constraints.AssertFalse;
+import javax.validation.constraints.AssertTrue;
+import javax.validation.constraints.DecimalMax;
+import javax.validation.constraints.DecimalMin;
+import javax.validation.constraints.Digits;
+import javax.validation.constraints.Future;
+import javax.validation.constraints.Max;
+import javax.validation.constraints.Min;
+import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Null;
+import javax.validation.constraints.Past;
+import javax.validation.constraints.Pattern;
+import javax.validation.constraints.Size;
+
+import org.adorsys.javaext.description.Description;
+import org.jboss.forge.parser.java.Annotation;
+import org.jboss.forge.parser.java.Field;
+import org.jboss.forge.parser.java.JavaClass;
+import org.jboss.forge.parser.java.JavaInterface;
+import org.jboss.forge.parser.java.JavaSource;
+import org.jboss.forge.parser.java.JavaType;
+import org.jboss.forge.parser.java.Member;
+import org.jboss.forge.parser.java.Method;
+
+/**
+ * Applies the description and validation message commands to a parsed
+ * source. The source is not saved and bundle entries are buffered in the
+ * {@link DescriptionKeyGenerator}, so that several commands can be applied to
+ * the same model before it is written. Constraint messages are set to the
+ * template {key} of their message key, see {@link ValidationMessages}.
+ *
+ * @author francis pouatcha
+ *
+ */
+public class DescriptionEditor {
+
+	private static final String MESSAGE_ATTRIBUTE = "message";
+
+	/*
+	 * The supported constraints keyed by the lower case simple name.
+	 */
+	private static final Map<String, Class<? extends java.lang.annotation.Annotation>> CONSTRAINTS;
+	static {
+		Map<String, Class<? extends java.lang.annotation.Annotation>> constraints = new LinkedHashMap<String, Class<? extends java.lang.annotation.Annotation>>();
+		addConstraint(constraints, Size.class);
+		addConstraint(constraints, NotNull.class);
+		addConstraint(constraints, Null.class);
+		addConstraint(constraints, Pattern.class);
+		addConstraint(constraints, Past.class);
+		addConstraint(constraints, Future.class);
+		addConstraint(constraints, Min.class);
+		addConstraint(constraints, Max.class);
+		addConstraint(constraints, Digits.class);
+		addConstraint(constraints, DecimalMin.class);
+		addConstraint(constraints, DecimalMax.class);
+		addConstraint(constraints, AssertTrue.class);
+		addConstraint(constraints, AssertFalse.class);
+		CONSTRAINTS = Collections.unmodifiableMap(constraints);
+	}
+
+	private final DescriptionKeyGenerator generator;
+
+	public DescriptionEditor(DescriptionKeyGenerator generator) {
+		this.generator = generator;
+	}
+
+	/**
+	 * Adds the description of a class or interface.
+	 *
+	 * @return true if the source was modified and has to be saved.
+	 */
+	public boolean addClassDescription(JavaSource<?> javaSource, String locale,
+			String title, String text) {
+		return addClassDescription(javaSource, Collections.singletonList(new LocalizedText(locale, title, text)));
+	}
+
+	/**
+	 * Adds the description of a class or interface in several locales.
+	 *
+	 * @return true if the source was modified and has to be saved.
+	 */
+	public boolean addClassDescription(JavaSource<?> javaSource, List<LocalizedText> texts) {
+		String descriptionKey = getDescriptionKey(javaSource);
+		if (javaSource.isClass()) {
+			JavaClass clazz = (JavaClass) javaSource;
+			updateResourceBundleFiles(clazz.getPackage(), clazz.getName(), descriptionKey, texts);
+			Annotation<JavaClass> annotation = clazz.getAnnotation(Description.class);
+			if (annotation == null)
+				annotation = clazz.addAnnotation(Description.class);
+			return setValue(annotation, null, descriptionKey);
+		} else if (javaSource.isInterface()) {
+			JavaInterface javaInterface = (JavaInterface) javaSource;
+			updateResourceBundleFiles(javaInterface.getPackage(), javaInterface.getName(), descriptionKey, texts);
+			Annotation<JavaInterface> annotation = javaInterface.getAnnotation(Description.class);
+			if (annotation == null)
+				annotation = javaInterface.addAnnotation(Description.class);
+			return setValue(annotation, null, descriptionKey);
+		}
+		throw new IllegalStateException("The resource '" + javaSource.getName()
+				+ "' is neither a class nor an interface.");
+	}
+
+	/**
+	 * Adds the description of a field of the given class.
+	 *
+	 * @return true if the source was modified and has to be saved.
+	 */
+	public boolean addFieldDescription(JavaClass javaClass, String property,
+			String locale, String title, String text) {
+		return addFieldDescription(javaClass, property, Collections.singletonList(new LocalizedText(locale, title, text)));
+	}
+
+	/**
+	 * Adds the description of a field of the given class in several locales.
+	 *
+	 * @return true if the source was modified and has to be saved.
+	 */
+	public boolean addFieldDescription(JavaClass javaClass, String property,
+			List<LocalizedText> texts) {
+		Field<JavaClass> field = getField(javaClass, property);
+		String descriptionKey = getDescriptionKey(field);
+		updateResourceBundleFiles(javaClass.getPackage(), javaClass.getName(), descriptionKey, texts);
+		Annotation<JavaClass> annotation = field.getAnnotation(Description.class);
+		if (annotation == null)
+			annotation = field.addAnnotation(Description.class);
+		return setValue(annotation, null, descriptionKey);
+	}
+
+	/**
+	 * Adds the description of an accessor of a class or interface. Accessors of
+	 * classes can only be described once.
+	 *
+	 * @return true if the source was modified and has to be saved.
+	 */
+	public boolean addAccessorDescription(JavaSource<?> javaSource,
+			String methodName, String locale, String title, String text) {
+		return addAccessorDescription(javaSource, methodName, Collections.singletonList(new LocalizedText(locale, title, text)));
+	}
+
+	/**
+	 * Adds the description of an accessor in several locales.
+	 *
+	 * @return true if the source was modified and has to be saved.
+	 */
+	public boolean addAccessorDescription(JavaSource<?> javaSource,
+			String methodName, List<LocalizedText> texts) {
+		if (javaSource.isClass()) {
+			JavaClass javaClass = (JavaClass) javaSource;
+			Method<JavaClass> method = javaClass.getMethod(methodName);
+			if (method == null)
+				throw new IllegalStateException(
+						"The current class has no property accessor named '"
+								+ methodName + "'");
+			if (method.hasAnnotation(Description.class))
+				throw new IllegalStateException("The element '"
+						+ method.getName() + "' is already annotated with @"
+						+ Description.class.getSimpleName());
+			String descriptionKey = getDescriptionKey(method);
+			updateResourceBundleFiles(javaClass.getPackage(), javaClass.getName(), descriptionKey, texts);
+			return setValue(method.addAnnotation(Description.class), null, descriptionKey);
+		} else if (javaSource.isInterface()) {
+			JavaInterface javaInterface = (JavaInterface) javaSource;
+			Method<JavaInterface> method = javaInterface.getMethod(methodName);
+			if (method == null)
+				throw new IllegalStateException(
+						"The current interface has no property accessor named '"
+								+ methodName + "'");
+			String descriptionKey = getDescriptionKey(method);
+			updateResourceBundleFiles(javaInterface.getPackage(), javaInterface.getName(), descriptionKey, texts);
+			Annotation<JavaInterface> annotation = method.getAnnotation(Description.class);
+			if (annotation == null)
+				annotation = method.addAnnotation(Description.class);
+			return setValue(annotation, null, descriptionKey);
+		}
+		throw new IllegalStateException("The resource '" + javaSource.getName()
+				+ "' is neither a class nor an interface.");
+	}
+
+	/**
+	 * Adds the message key of a constraint of a field, adding the constraint if
+	 * the field does not carry it yet.
+	 *
+	 * @return true if the source was modified and has to be saved.
+	 */
+	public boolean addValidationMessage(JavaClass javaClass, String property,
+			Class<? extends java.lang.annotation.Annotation> constraint,
+			String locale, String title, String text) {
+		return addValidationMessage(javaClass, property, constraint, Collections.singletonList(new LocalizedText(locale, title, text)));
+	}
+
+	/**
+	 * Adds the message key of a constraint of a field with its messages in
+	 * several locales.
+	 *
+	 * @return true if the source was modified and has to be saved.
+	 */
+	public boolean addValidationMessage(JavaClass javaClass, String property,
+			Class<? extends java.lang.annotation.Annotation> constraint,
+			List<LocalizedText> texts) {
+		Field<JavaClass> field = getField(javaClass, property);
+		String validationKey = getValidationKey(field, constraint.getSimpleName());
+		updateResourceBundleFiles(javaClass.getPackage(), javaClass.getName(), validationKey, texts);
+		Annotation<JavaClass> annotation = field.getAnnotation(constraint);
+		if (annotation == null)
+			annotation = field.addAnnotation(constraint);
+		return setValue(annotation, MESSAGE_ATTRIBUTE, ValidationMessages.getTemplate(validationKey));
+	}
+
+	/**
+	 * Adds the message keys of several constraints of a field, adding the
+	 * constraints the field does not carry yet.
+	 *
+	 * @return true if the source was modified and has to be saved.
+	 */
+	public boolean addValidationMessages(JavaClass javaClass, String property, ConstraintMessages messages) {
+		Field<JavaClass> field = getField(javaClass, property);
+		boolean modified = false;
+		for (Map.Entry<Class<? extends java.lang.annotation.Annotation>, List<LocalizedText>> entry : messages
+				.getMessages().entrySet()) {
+			String validationKey = getValidationKey(field, entry.getKey().getSimpleName());
+			updateResourceBundleFiles(javaClass.getPackage(), javaClass.getName(), validationKey, entry.getValue());
+			Annotation<JavaClass> annotation = field.getAnnotation(entry.getKey());
+			if (annotation == null)
+				annotation = field.addAnnotation(entry.getKey());
+			modified |= setValue(annotation, MESSAGE_ATTRIBUTE, ValidationMessages.getTemplate(validationKey));
+		}
+		return modified;
+	}
+
+	/**
+	 * Adds the message key of every supported constraint already present on
+	 * the fields of the class. Messages set earlier are kept in the bundles.
+	 *
+	 * @return true if the source was modified and has to be saved.
+	 */
+	public boolean addAllValidationMessages(JavaClass javaClass) {
+		List<LocalizedText> texts = Collections.singletonList(new LocalizedText(null, null, null));
+		boolean modified = false;
+		for (Field<JavaClass> field : javaClass.getFields()) {
+			for (Class<? extends java.lang.annotation.Annotation> constraint : CONSTRAINTS.values()) {
+				Annotation<JavaClass> annotation = field.getAnnotation(constraint);
+				if (annotation == null)
+					continue;
+				String validationKey = getValidationKey(field, constraint.getSimpleName());
+				updateResourceBundleFiles(javaClass.getPackage(), javaClass.getName(), validationKey, texts);
+				modified |= setValue(annotation, MESSAGE_ATTRIBUTE, ValidationMessages.getTemplate(validationKey));
+			}
+		}
+		return modified;
+	}
+
+	/*
+	 * Buffers the entries of each locale; all bundles are written on flush.
+	 */
+	private void updateResourceBundleFiles(String packageName, String klassSimpleName, String key,
+			List<LocalizedText> texts) {
+		for (LocalizedText localizedText : texts) {
+			generator.updateResourceBundleFiles(packageName, klassSimpleName, localizedText.getLocale(), key,
+					localizedText.getTitle(), localizedText.getText());
+		}
+	}
+
+	public DescriptionKeyGenerator getGenerator() {
+		return generator;
+	}
+
+	/**
+	 * @return the constraint of the given simple name, ignoring case, or null
+	 *         if the constraint is not supported.
+	 */
+	public static Class<? extends java.lang.annotation.Annotation> getConstraint(String simpleName) {
+		if (simpleName == null)
+			return null;
+		return CONSTRAINTS.get(simpleName.trim().toLowerCase(Locale.ENGLISH));
+	}
+
+	public static String getDescriptionKey(Member<?, ?> member) {
+		return member.getOrigin().getName() + DescriptionPlugin.UNDERSCORE_CONSTANT + member.getName()
+				+ DescriptionPlugin.UNDERSCORE_CONSTANT + DescriptionPlugin.DESCRIPTION_CONSTANT;
+	}
+
+	public static String getValidationKey(Member<?, ?> member, String constraintClass) {
+		return member.getOrigin().getName() + DescriptionPlugin.UNDERSCORE_CONSTANT + member.getName()
+				+ DescriptionPlugin.UNDERSCORE_CONSTANT + constraintClass
+				+ DescriptionPlugin.UNDERSCORE_CONSTANT + DescriptionPlugin.VALIDATION_CONSTANT;
+	}
+
+	public static String getDescriptionKey(JavaType<?> javaType) {
+		return javaType.getName() + DescriptionPlugin.UNDERSCORE_CONSTANT + DescriptionPlugin.DESCRIPTION_CONSTANT;
+	}
+
+	private static Field<JavaClass> getField(JavaClass javaClass, String property) {
+		Field<JavaClass> field = javaClass.getField(property);
+		if (field == null)
+			throw new IllegalStateException("The class '" + javaClass.getName()
+					+ "' has no property named '" + property + "'");
+		return field;
+	}
+
+	/*
+	 * Sets the value of the annotation if it differs. A null name stands for
+	 * the default value of the annotation.
+	 */
+	private static boolean setValue(Annotation<?> annotation, String name, String value) {
+		String current = name == null ? annotation.getStringValue() : annotation.getStringValue(name);
+		if (value.equals(current))
+			return false;
+		if (name == null) {
+			annotation.setStringValue(value);
+		} else {
+			annotation.setStringValue(name, value);
+		}
+		return true;
+	}
+
+	private static void addConstraint(Map<String, Class<? extends java.lang.annotation.Annotation>> constraints,
+			Class<? extends java.lang.annotation.Annotation> constraint) {
+		constraints.put(constraint.getSimpleName().toLowerCase(Locale.ENGLISH), constraint);
+	}
+}
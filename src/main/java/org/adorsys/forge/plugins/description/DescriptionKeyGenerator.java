@@ -0,0 +1,243 @@
+package org.adorsys.forge.plugins.description;
+
+import java.io.File;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.adorsys.forge.plugins.utils.BundleSession;
+import org.adorsys.javaext.description.Description;
+import org.jboss.forge.parser.java.Annotation;
+import org.jboss.forge.parser.java.Field;
+import org.jboss.forge.parser.java.JavaClass;
+import org.jboss.forge.parser.java.JavaInterface;
+import org.jboss.forge.parser.java.JavaSource;
+import org.jboss.forge.parser.java.Method;
+
+/**
+ * Adds description keys to classes, interfaces, fields and accessors. Bundle
+ * entries are buffered in a {@link BundleSession}, so that a single instance
+ * can be shared by parallel workers and each bundle is written once.
+ *
+ * @author francis pouatcha
+ *
+ */
+public class DescriptionKeyGenerator {
+
+	private static final String GET_PREFIX = "get";
+	private static final String IS_PREFIX = "is";
+
+	private final File resourceFolder;
+	private final BundleStrategy bundleStrategy;
+	private final BundleSession bundleSession;
+
+	public DescriptionKeyGenerator(File resourceFolder,
+			BundleSession bundleSession) {
+		this(resourceFolder, BundleStrategy.CLASS, bundleSession);
+	}
+
+	public DescriptionKeyGenerator(File resourceFolder,
+			BundleStrategy bundleStrategy, BundleSession bundleSession) {
+		this.resourceFolder = resourceFolder;
+		this.bundleStrategy = bundleStrategy;
+		this.bundleSession = bundleSession;
+	}
+
+	/**
+	 * Generates the description keys of the given source.
+	 *
+	 * @return true if the source was modified and has to be saved.
+	 */
+	public boolean generate(JavaSource<?> javaSource, boolean onProperties,
+			boolean onAccessors) {
+		if (javaSource.isClass()) {
+			JavaClass clazz = (JavaClass) javaSource;
+			boolean modified = false;
+			if (!clazz.hasAnnotation(Description.class)) {
+				Annotation<JavaClass> annotation = clazz
+						.addAnnotation(Description.class);
+				String descriptionKey = clazz.getQualifiedName() + "."
+						+ DescriptionPlugin.DESCRIPTION_CONSTANT;
+				annotation.setStringValue(descriptionKey);
+				updateResourceBundleFiles(clazz.getPackage(), clazz.getName(),
+						null, descriptionKey, null, null);
+				modified = true;
+			}
+			if (onAccessors)
+				modified |= addDescriptionOnAccessors(clazz);
+			if (onProperties)
+				modified |= addDescriptionOnProperties(clazz);
+			return modified;
+		} else if (javaSource.isInterface()) {
+			JavaInterface javaInterface = (JavaInterface) javaSource;
+			boolean modified = false;
+			if (!javaInterface.hasAnnotation(Description.class)) {
+				Annotation<JavaInterface> annotation = javaInterface
+						.addAnnotation(Description.class);
+				String descriptionKey = javaInterface.getQualifiedName() + "."
+						+ DescriptionPlugin.DESCRIPTION_CONSTANT;
+				annotation.setStringValue(descriptionKey);
+				updateResourceBundleFiles(javaInterface.getPackage(),
+						javaInterface.getName(), null, descriptionKey, null, null);
+				modified = true;
+			}
+			if (onAccessors)
+				modified |= addDescriptionOnAccessors(javaInterface);
+			return modified;
+		}
+		return false;
+	}
+
+	/**
+	 * Buffers a default bundle entry for each description key of the source,
+	 * so that keys added by hand or by another tool get their title and text
+	 * entries. Existing entries are kept.
+	 *
+	 * @return the keys of the source as written in the bundle.
+	 */
+	public Set<String> syncBundles(JavaSource<?> javaSource) {
+		Set<String> keys = new TreeSet<String>();
+		if (javaSource.isClass()) {
+			JavaClass clazz = (JavaClass) javaSource;
+			syncBundle(clazz, clazz.getAnnotation(Description.class), keys);
+			for (Field<JavaClass> field : clazz.getFields()) {
+				syncBundle(clazz, field.getAnnotation(Description.class), keys);
+			}
+			for (Method<JavaClass> method : clazz.getMethods()) {
+				syncBundle(clazz, method.getAnnotation(Description.class), keys);
+			}
+		} else if (javaSource.isInterface()) {
+			JavaInterface javaInterface = (JavaInterface) javaSource;
+			syncBundle(javaInterface, javaInterface.getAnnotation(Description.class), keys);
+			for (Method<JavaInterface> method : javaInterface.getMethods()) {
+				syncBundle(javaInterface, method.getAnnotation(Description.class), keys);
+			}
+		}
+		return keys;
+	}
+
+	private void syncBundle(JavaSource<?> javaSource, Annotation<?> annotation, Set<String> keys) {
+		if (annotation == null)
+			return;
+		String descriptionKey = annotation.getStringValue();
+		if (descriptionKey == null || descriptionKey.trim().length() == 0)
+			return;
+		updateResourceBundleFiles(javaSource.getPackage(), javaSource.getName(), null, descriptionKey.trim(), null, null);
+		keys.add(descriptionKey.trim().replace(DescriptionPlugin.DOT_CONSTANT, DescriptionPlugin.UNDERSCORE_CONSTANT));
+	}
+
+	/**
+	 * @return the default bundle of the given class.
+	 */
+	public File getBundleFile(String packageName, String klassSimpleName) {
+		return new File(resourceFolder, bundleStrategy.getBundlePath(packageName, klassSimpleName, null));
+	}
+
+	/**
+	 * Generates the description key of a single field.
+	 *
+	 * @return true if the source of the field was modified.
+	 */
+	public boolean generate(Field<? extends JavaSource<?>> field) {
+		if (field.hasAnnotation(Description.class))
+			return false;
+		return addDescription(field.getOrigin(), field.getName(), field.addAnnotation(Description.class));
+	}
+
+	/**
+	 * Generates the description key of a single accessor.
+	 *
+	 * @return true if the source of the accessor was modified.
+	 */
+	public boolean generate(Method<? extends JavaSource<?>> method) {
+		if (method.hasAnnotation(Description.class))
+			return false;
+		return addDescription(method.getOrigin(), method.getName(), method.addAnnotation(Description.class));
+	}
+
+	private boolean addDescription(JavaSource<?> origin, String memberName, Annotation<?> annotation) {
+		String descriptionKey = origin.getQualifiedName() + "." + memberName + "." + DescriptionPlugin.DESCRIPTION_CONSTANT;
+		annotation.setStringValue(descriptionKey);
+		updateResourceBundleFiles(origin.getPackage(), origin.getName(), null, descriptionKey, null, null);
+		return true;
+	}
+
+	private boolean addDescriptionOnAccessors(JavaInterface javaInterface) {
+		boolean modified = false;
+		List<Method<JavaInterface>> methods = javaInterface.getMethods();
+		for (Method<JavaInterface> method : methods) {
+			String methodName = method.getName();
+			if (methodName == null)
+				continue;
+			if (methodName.startsWith(IS_PREFIX)
+					|| methodName.startsWith(GET_PREFIX)){
+				if(method.hasAnnotation(Description.class))continue;
+				Annotation<JavaInterface> annotation = method.addAnnotation(Description.class);
+				String descriptionKey = javaInterface.getQualifiedName() + "." + methodName + "." + DescriptionPlugin.DESCRIPTION_CONSTANT;
+				annotation.setStringValue(descriptionKey);
+				updateResourceBundleFiles(javaInterface.getPackage(), javaInterface.getName(), null, descriptionKey, null, null);
+				modified = true;
+			}
+		}
+		return modified;
+	}
+
+	private boolean addDescriptionOnProperties(JavaClass javaClass) {
+		boolean modified = false;
+		List<Field<JavaClass>> fields = javaClass.getFields();
+		for (Field<JavaClass> field : fields) {
+			if(field.isStatic()) continue;
+			if(field.hasAnnotation(Description.class)) continue;
+			Annotation<JavaClass> annotation = field.addAnnotation(Description.class);
+			String descriptionKey = javaClass.getQualifiedName() + "." + field.getName() + "." + DescriptionPlugin.DESCRIPTION_CONSTANT;
+			annotation.setStringValue(descriptionKey);
+			updateResourceBundleFiles(javaClass.getPackage(), javaClass.getName(), null, descriptionKey, null, null);
+			modified = true;
+		}
+		return modified;
+	}
+
+	private boolean addDescriptionOnAccessors(JavaClass javaClass) {
+		boolean modified = false;
+		List<Method<JavaClass>> methods = javaClass.getMethods();
+		for (Method<JavaClass> method : methods) {
+			String methodName = method.getName();
+			if (methodName == null)
+				continue;
+			if (methodName.startsWith(IS_PREFIX)
+					|| methodName.startsWith(GET_PREFIX)){
+				if(method.hasAnnotation(Description.class))continue;
+				Annotation<JavaClass> annotation = method.addAnnotation(Description.class);
+				String descriptionKey = javaClass.getQualifiedName() + "." + methodName + "." + DescriptionPlugin.DESCRIPTION_CONSTANT;
+				annotation.setStringValue(descriptionKey);
+				updateResourceBundleFiles(javaClass.getPackage(), javaClass.getName(), null, descriptionKey, null, null);
+				modified = true;
+			}
+		}
+		return modified;
+	}
+
+	/*
+	 * Buffers the title and text entries of the given key. A null title or
+	 * text keeps the value already present in the bundle.
+	 */
+	public void updateResourceBundleFiles(String packageName,
+			String klassSimpleName, String locale, String key, String title,
+			String text) {
+		File bundleFile = new File(resourceFolder, bundleStrategy.getBundlePath(
+				packageName, klassSimpleName, locale));
+		String keyFormated = key.replace(DescriptionPlugin.DOT_CONSTANT,
+				DescriptionPlugin.UNDERSCORE_CONSTANT);
+		bundleSession.put(bundleFile, keyFormated + DescriptionPlugin.DOT_CONSTANT
+				+ DescriptionPlugin.TITLE_SUFFIX, title);
+		bundleSession.put(bundleFile, keyFormated + DescriptionPlugin.DOT_CONSTANT
+				+ DescriptionPlugin.TEXT_SUFFIX, text);
+		String message = ValidationMessages.getMessage(title, text);
+		if (message != null && ValidationMessages.isValidationKey(keyFormated))
+			bundleSession.put(ValidationMessages.getBundleFile(resourceFolder, locale), keyFormated, message);
+	}
+
+	public BundleSession getBundleSession() {
+		return bundleSession;
+	}
+}
@@ -0,0 +1,132 @@
+package org.adorsys.forge.plugins.description;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Runs the project wide description commands without a shell, on the plugin
+ * jar and its dependencies:
+ *
+ * <pre>
+ * java -cp ... org.adorsys.forge.plugins.description.DescriptionLauncher generate-keys --onAllProperties
+ * java -cp ... org.adorsys.forge.plugins.description.DescriptionLauncher verify --report target/descriptions.csv
+ * java -cp ... org.adorsys.forge.plugins.description.DescriptionLauncher gc --dryRun
+ * java -cp ... org.adorsys.forge.plugins.description.DescriptionLauncher validation-messages
+ * </pre>
+ *
+ * The source and resource folders default to src/main/java and
+ * src/main/resources of the working directory.
+ *
+ * @author francis pouatcha
+ *
+ */
+public class DescriptionLauncher {
+
+	private static final String OPTION_PREFIX = "--";
+	private static final String GENERATE_KEYS = "generate-keys";
+	private static final String VERIFY = "verify";
+	private static final String GC = "gc";
+	private static final String VALIDATION_MESSAGES = "validation-messages";
+
+	private final Map<String, String> options = new HashMap<String, String>();
+	private final Set<String> flags = new HashSet<String>();
+
+	public static void main(String[] args) throws IOException {
+		if (args.length == 0) {
+			usage();
+			System.exit(1);
+		}
+		DescriptionLauncher launcher = new DescriptionLauncher();
+		for (int i = 1; i < args.length; i++) {
+			if (!args[i].startsWith(OPTION_PREFIX))
+				throw new IllegalStateException("Unexpected argument '" + args[i] + "'");
+			String name = args[i].substring(OPTION_PREFIX.length());
+			if (i + 1 < args.length && !args[i + 1].startsWith(OPTION_PREFIX)) {
+				launcher.options.put(name, args[++i]);
+			} else {
+				launcher.flags.add(name);
+			}
+		}
+		if (!launcher.run(args[0]))
+			System.exit(1);
+	}
+
+	/**
+	 * @return false if the command failed.
+	 */
+	boolean run(String command) throws IOException {
+		DescriptionService service = new DescriptionService(getFolder("sources", "src/main/java"),
+				getFolder("resources", "src/main/resources"));
+		if (GENERATE_KEYS.equals(command)) {
+			long start = System.currentTimeMillis();
+			String packageName = options.get("package");
+			List<File> files = service.listSources(packageName);
+			boolean onProperties = flags.contains("onAllProperties");
+			boolean onAccessors = flags.contains("onAllAccessors");
+			ChangeSet changeSet;
+			if (flags.contains("force")) {
+				changeSet = service.generateKeys(files, onProperties, onAccessors);
+				changeSet.apply(service.getSourceFolder());
+			} else {
+				DescriptionState state = DescriptionState.load(new File(DescriptionState.FILE_NAME).getAbsoluteFile());
+				changeSet = service.generateKeys(files, onProperties, onAccessors, state);
+				changeSet.apply(service.getSourceFolder());
+				service.record(changeSet, files, state, packageName == null);
+			}
+			System.out.println("Processed " + changeSet.getScanned() + " sources in "
+					+ (System.currentTimeMillis() - start) + " ms, " + changeSet.getSkipped()
+					+ " unchanged sources skipped, " + changeSet.getSourcesWritten() + " sources and "
+					+ changeSet.getBundlesWritten() + " bundle files written.");
+			return true;
+		} else if (VERIFY.equals(command)) {
+			DescriptionVerifier verifier = service.newVerifier();
+			List<DescriptionVerifier.Issue> issues = verifier.verify(options.get("package"));
+			for (DescriptionVerifier.Issue issue : issues) {
+				System.out.println(issue.getType() + " " + issue.getLocale() + " " + issue.getBundle() + " "
+						+ issue.getKey());
+			}
+			if (options.containsKey("report"))
+				DescriptionVerifier.writeReport(new File(options.get("report")), issues);
+			System.out.println("Verified " + verifier.getKeyCount() + " keys of " + verifier.getSourceCount()
+					+ " sources against " + verifier.getBundleCount() + " bundles, " + issues.size()
+					+ " issues found.");
+			return issues.isEmpty() || !flags.contains("failOnIssues");
+		} else if (GC.equals(command)) {
+			boolean dryRun = flags.contains("dryRun");
+			BundleCollector collector = new BundleCollector();
+			collector.collect(service.newVerifier().verify(null), dryRun);
+			System.out.println((dryRun ? "Would remove " : "Removed ") + collector.getKeys()
+					+ " orphaned keys in " + collector.getBundles() + " bundles, "
+					+ collector.getBytesReclaimed() + " bytes.");
+			return true;
+		} else if (VALIDATION_MESSAGES.equals(command)) {
+			ValidationMessages validationMessages = service.newValidationMessages();
+			validationMessages.rebuild();
+			System.out.println("Aggregated " + validationMessages.getKeys() + " messages of "
+					+ validationMessages.getBundlesRead() + " bundles, " + validationMessages.getBundlesWritten()
+					+ " ValidationMessages bundles written.");
+			return true;
+		}
+		usage();
+		return false;
+	}
+
+	private File getFolder(String option, String defaultPath) {
+		String path = options.get(option);
+		return new File(path != null ? path : defaultPath).getAbsoluteFile();
+	}
+
+	private static void usage() {
+		System.err.println("Usage: DescriptionLauncher <command> [options]");
+		System.err.println("  generate-keys [--package name] [--onAllProperties] [--onAllAccessors] [--force]");
+		System.err.println("  verify [--package name] [--report file] [--failOnIssues]");
+		System.err.println("  gc [--dryRun]");
+		System.err.println("  validation-messages");
+		System.err.println("Common options: --sources folder (src/main/java), --resources folder (src/main/resources)");
+	}
+}
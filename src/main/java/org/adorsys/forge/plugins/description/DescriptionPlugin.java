@@ -1,8 +1,10 @@
 package org.adorsys.forge.plugins.description;
 
 import java.io.File;
-import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 
 import javax.enterprise.event.Event;
 import javax.inject.Inject;
@@ -20,20 +22,20 @@ import javax.validation.constraints.Past;
 import javax.validation.constraints.Pattern;
 import javax.validation.constraints.Size;
 
-import org.adorsys.javaext.description.Description;
-import org.jboss.forge.parser.java.Annotation;
+import org.adorsys.forge.plugins.utils.CommandStatistics;
+import org.adorsys.forge.plugins.utils.JavaSourceCache;
+import org.adorsys.forge.plugins.utils.ProjectSymbolIndex;
+import org.adorsys.forge.plugins.utils.SaveService;
+import org.adorsys.forge.plugins.utils.Timed;
+import org.adorsys.forge.plugins.utils.Utils;
 import org.jboss.forge.parser.java.Field;
 import org.jboss.forge.parser.java.JavaClass;
-import org.jboss.forge.parser.java.JavaInterface;
 import org.jboss.forge.parser.java.JavaSource;
-import org.jboss.forge.parser.java.JavaType;
-import org.jboss.forge.parser.java.Member;
 import org.jboss.forge.parser.java.Method;
 import org.jboss.forge.project.Project;
 import org.jboss.forge.project.facets.JavaSourceFacet;
 import org.jboss.forge.project.facets.ResourceFacet;
 import org.jboss.forge.project.facets.events.InstallFacets;
-import org.jboss.forge.resources.PropertiesFileResource;
 import org.jboss.forge.resources.Resource;
 import org.jboss.forge.resources.java.JavaFieldResource;
 import org.jboss.forge.resources.java.JavaMethodResource;
@@ -41,7 +43,6 @@ import org.jboss.forge.resources.java.JavaResource;
 import org.jboss.forge.shell.Shell;
 import org.jboss.forge.shell.ShellMessages;
 import org.jboss.forge.shell.completer.PropertyCompleter;
-import org.jboss.forge.shell.events.PickupResource;
 import org.jboss.forge.shell.plugins.Alias;
 import org.jboss.forge.shell.plugins.Command;
 import org.jboss.forge.shell.plugins.Help;
@@ -62,11 +63,10 @@ import org.jboss.forge.shell.plugins.SetupCommand;
 @RequiresProject
 @Help("This plugin will hel you add description on entity or field  .")
 @RequiresFacet({ DescriptionFacet.class })
+@Timed
 public class DescriptionPlugin implements Plugin {
 
 
-	private static final String GET_PREFIX = "get";
-	private static final String IS_PREFIX = "is";	
 	public static final String DESCRIPTION_CONSTANT = "description";
 	public static final String VALIDATION_CONSTANT = "validation";
 	/*
@@ -87,7 +87,13 @@ public class DescriptionPlugin implements Plugin {
 	private Event<InstallFacets> request;
 
 	@Inject
-	private Event<PickupResource> pickup;
+	private SaveService saveService;
+
+	@Inject
+	private JavaSourceCache javaSourceCache;
+
+	@Inject
+	private ProjectSymbolIndex symbolIndex;
 
 	@Inject
 	private Shell shell;
@@ -110,62 +116,32 @@ public class DescriptionPlugin implements Plugin {
 			@Option(name = "title") String title, 
 			@Option(name = "text") String text, 
             @Option(name = "locale") String locale,			
-			final PipeOut out){
+			@Option(name = "values", help = "Titles and texts of several locales, each of the form locale:title:text.") String[] values,
+			@Option(name = "valuesFile", help = "A file with lines of the form locale,title,text.") String valuesFile,
+			final PipeOut out) throws IOException{
 		final Resource<?> currentResource = shell.getCurrentResource();
-
-			JavaClassOrInterface javaClassOrInterface = DescriptionPluginUtils
-					.inspectResource(currentResource);
-
-			if (javaClassOrInterface.isClass()) {
-				JavaClass clazz = javaClassOrInterface.getJavaClass();
-				String descriptionKey = getDescriptionKey(clazz);	
-				updateResourceBundleFiles(clazz.getPackage(), clazz.getName(), locale, descriptionKey, title, text);
-				
-				Annotation<JavaClass> annotation = null;
-				if (!clazz.hasAnnotation(Description.class)) {
-					annotation = clazz
-							.addAnnotation(Description.class);
-					annotation.setStringValue(descriptionKey);
-					saveAndFire(clazz);
-				} else {
-					annotation = clazz.getAnnotation(Description.class);
-					if(!descriptionKey.equals(annotation.getStringValue())){
-						annotation.setStringValue(descriptionKey);
-						saveAndFire(clazz);
-					}
-				}
-			} else if (javaClassOrInterface.isInterface()) {
-				JavaInterface javaInterface = javaClassOrInterface
-						.getJavaInterface();
-				String descriptionKey = getDescriptionKey(javaInterface);	
-				updateResourceBundleFiles(javaInterface.getPackage(), javaInterface.getName(),locale, descriptionKey, title, text);
-
-				Annotation<JavaInterface> annotation = null;
-				if (!javaInterface.hasAnnotation(Description.class)) {
-					annotation = javaInterface
-							.addAnnotation(Description.class);
-					annotation.setStringValue(descriptionKey);
-					saveAndFire(javaInterface);
-				} else {
-					annotation = javaInterface.getAnnotation(Description.class);
-					if(!descriptionKey.equals(annotation.getStringValue())){
-						annotation.setStringValue(descriptionKey);
-						saveAndFire(javaInterface);
-					}
-				}
+		JavaSource<?> javaSource = DescriptionPluginUtils.readCurrentResource(currentResource, javaSourceCache);
+		final List<LocalizedText> texts = getLocalizedTexts(locale, title, text, values, valuesFile);
+		apply(newDescriptionService().edit(javaSource, new DescriptionService.Edit() {
+			@Override
+			public boolean apply(JavaSource<?> source, DescriptionEditor editor) {
+				return editor.addClassDescription(source, texts);
 			}
+		}), true);
 	}
 
 	@Command(value = "add-field-description", help = "Adds a description annotation to the field of a class")
 	public void setFieldDescription(
-			@Option(name = "onProperty", completer = PropertyCompleter.class, required = true) String property,
+			@Option(name = "onProperty", completer = PropertyCompleter.class, required = true) final String property,
 			@Option(name = "title") String title, 
 			@Option(name = "text") String text, 
             @Option(name = "locale") String locale,
-			final PipeOut out) {
+			@Option(name = "values", help = "Titles and texts of several locales, each of the form locale:title:text.") String[] values,
+			@Option(name = "valuesFile", help = "A file with lines of the form locale,title,text.") String valuesFile,
+			final PipeOut out) throws IOException {
 		final Resource<?> currentResource = shell.getCurrentResource();
 		JavaClassOrInterface javaClassOrInterface = DescriptionPluginUtils
-				.inspectResource(currentResource);
+				.inspectResource(currentResource, javaSourceCache);
 
 		if (!javaClassOrInterface.isClass()) {
 			throw new IllegalStateException(
@@ -173,27 +149,13 @@ public class DescriptionPlugin implements Plugin {
 		}
 
 		JavaClass javaClass = javaClassOrInterface.getJavaClass();
-		
-		final Field<JavaClass> field = javaClass.getField(property);
-		if (field == null)
-			throw new IllegalStateException(
-					"The current class has no property named '" + property
-					+ "'");
-
-		String descriptionKey = getDescriptionKey(field);
-		updateResourceBundleFiles(field.getOrigin().getPackage(), field.getOrigin().getName(), locale, descriptionKey, title, text);
-		Annotation<JavaClass> annotation = null;
-		if(!field.hasAnnotation(Description.class)){
-			annotation = field.addAnnotation(Description.class);
-			annotation.setStringValue(descriptionKey);
-			saveAndFire(javaClass);
-		} else {
-			annotation = field.getAnnotation(Description.class);
-			if(!descriptionKey.equals(annotation.getStringValue())){
-				annotation.setStringValue(descriptionKey);
-				saveAndFire(javaClass);
+		final List<LocalizedText> texts = getLocalizedTexts(locale, title, text, values, valuesFile);
+		apply(newDescriptionService().edit(javaClass, new DescriptionService.Edit() {
+			@Override
+			public boolean apply(JavaSource<?> source, DescriptionEditor editor) {
+				return editor.addFieldDescription((JavaClass) source, property, texts);
 			}
-		}
+		}), true);
 	}
 	
 	@Command(value = "add-size-message", help = "Adds a message key to the @Size constraint and corresponding message in the properties files.")
@@ -326,279 +288,340 @@ public class DescriptionPlugin implements Plugin {
 		handleValidationCommand(property, title, text, locale, AssertFalse.class);
 	}
 	
-	private void handleValidationCommand(String property, String title, String text, String locale, Class<? extends java.lang.annotation.Annotation> annotationKlass){
+	private void handleValidationCommand(final String property, final String title, final String text, final String locale,
+			final Class<? extends java.lang.annotation.Annotation> annotationKlass){
 		final Resource<?> currentResource = shell.getCurrentResource();
-		JavaClassOrInterface javaClassOrInterface = DescriptionPluginUtils.inspectResource(currentResource);
+		JavaClassOrInterface javaClassOrInterface = DescriptionPluginUtils.inspectResource(currentResource, javaSourceCache);
 
 		if (!javaClassOrInterface.isClass()) {
 			throw new IllegalStateException("The current resource is not a class.");
 		}
 
 		JavaClass javaClass = javaClassOrInterface.getJavaClass();
-		
-		final Field<JavaClass> field = javaClass.getField(property);
-		if (field == null)
-			throw new IllegalStateException("The current class has no property named '" + property + "'");
-		
-		handleValidationMessage(javaClass, field, annotationKlass, locale, title, text);
+		apply(newDescriptionService().edit(javaClass, new DescriptionService.Edit() {
+			@Override
+			public boolean apply(JavaSource<?> source, DescriptionEditor editor) {
+				return editor.addValidationMessage((JavaClass) source, property, annotationKlass, locale, title, text);
+			}
+		}), true);
 	}
-	
-	private void handleValidationMessage(JavaClass javaClass, Field<JavaClass> field, 
-			Class<? extends java.lang.annotation.Annotation> annotationKlass, 
-			String locale, String title, String text){
-		String validationKey = getValidationKey(field, annotationKlass.getSimpleName());
-		updateResourceBundleFiles(field.getOrigin().getPackage(), field.getOrigin().getName(), locale, validationKey, title, text);
-		Annotation<JavaClass> annotation = null;
-		if(!field.hasAnnotation(annotationKlass)){
-			annotation = field.addAnnotation(annotationKlass);
-			annotation.setStringValue("message", validationKey);
-			saveAndFire(javaClass);
-		} else {
-			annotation = field.getAnnotation(annotationKlass);
-			if(!validationKey.equals(annotation.getStringValue("message"))){
-				annotation.setStringValue("message", validationKey);
-				saveAndFire(javaClass);
+
+	@Command(value = "add-validation-messages", help = "Adds the message keys of several constraints of a field and their messages in the properties files. The class is saved once.")
+	public void addValidationMessages(
+			@Option(name = "onProperty", completer = PropertyCompleter.class, required = true) final String property,
+			@Option(name = "constraints", help = "The simple names of the constraints, as NotNull Size Pattern.") String[] constraints,
+			@Option(name = "messages", help = "Messages of the constraints, each of the form constraint:locale:title:text.") String[] messages,
+			@Option(name = "messagesFile", help = "A file with lines of the form constraint,locale,title,text.") String messagesFile,
+			final PipeOut out) throws IOException {
+		JavaClassOrInterface javaClassOrInterface = DescriptionPluginUtils.inspectResource(shell.getCurrentResource(), javaSourceCache);
+		if (!javaClassOrInterface.isClass()) {
+			throw new IllegalStateException("The current resource is not a class.");
+		}
+		final ConstraintMessages constraintMessages = new ConstraintMessages();
+		if (constraints != null) {
+			for (String constraint : constraints) {
+				constraintMessages.addConstraint(constraint);
+			}
+		}
+		if (messages != null) {
+			for (String message : messages) {
+				constraintMessages.parse(message);
 			}
 		}
+		if (messagesFile != null)
+			constraintMessages.read(Utils.resolveFile(shell, messagesFile));
+		if (constraintMessages.isEmpty())
+			throw new IllegalStateException("No constraint given, use --constraints, --messages or --messagesFile.");
+		apply(newDescriptionService().edit(javaClassOrInterface.getJavaClass(), new DescriptionService.Edit() {
+			@Override
+			public boolean apply(JavaSource<?> source, DescriptionEditor editor) {
+				return editor.addValidationMessages((JavaClass) source, property, constraintMessages);
+			}
+		}), true);
+	}
+
+	@Command(value = "add-all-validation-messages", help = "Adds the message keys of all constraints present on the fields of the current class, of a package or of the whole project. Each class is saved once.")
+	public void addAllValidationMessages(
+			@Option(name = "package", required=false, help = "Processes the classes of the given package and its sub packages.") String packageName,
+			@Option(name = "recursive", flagOnly = true, required=false, help = "Processes all classes of the source folder.") boolean recursive,
+			final PipeOut out){
+		DescriptionService service = newDescriptionService();
+		if(packageName == null && !recursive){
+			JavaClassOrInterface javaClassOrInterface = DescriptionPluginUtils.inspectResource(shell.getCurrentResource(), javaSourceCache);
+			if (!javaClassOrInterface.isClass()) {
+				throw new IllegalStateException("The current resource is not a class.");
+			}
+			apply(service.edit(javaClassOrInterface.getJavaClass(), new DescriptionService.Edit() {
+				@Override
+				public boolean apply(JavaSource<?> source, DescriptionEditor editor) {
+					return editor.addAllValidationMessages((JavaClass) source);
+				}
+			}), true);
+			return;
+		}
+		long start = System.currentTimeMillis();
+		ChangeSet changeSet = service.addAllValidationMessages(service.listSources(recursive ? null : packageName));
+		int written = apply(changeSet, false);
+		ShellMessages.success(out, "Processed " + changeSet.getScanned() + " sources in "
+				+ (System.currentTimeMillis() - start) + " ms, " + written + " sources and "
+				+ changeSet.getBundlesWritten() + " bundle files written.");
 	}
 
 	@Command(value = "add-accessor-description", help = "Adds a description annotation to a class or interface accessor method")
 	public void addAccessorDescription(
-			@Option(name = "onAccessor", completer = AccessorCompleter.class, required = true) String methodName,
-			@Option(name = "title") String title, 
-			@Option(name = "text") String text, 
-            @Option(name = "locale") String locale,
+			@Option(name = "onAccessor", completer = AccessorCompleter.class, required = true) final String methodName,
+			@Option(name = "title") final String title, 
+			@Option(name = "text") final String text, 
+            @Option(name = "locale") final String locale,
 			final PipeOut out) {
 		final Resource<?> currentResource = shell.getCurrentResource();
-
-		JavaClassOrInterface javaClassOrInterface = DescriptionPluginUtils
-				.inspectResource(currentResource);
-
-		if (javaClassOrInterface.isClass()) {
-			JavaClass javaClass = javaClassOrInterface.getJavaClass();
-			final Method<JavaClass> method = javaClass.getMethod(methodName);
-			if (method == null)
-				throw new IllegalStateException(
-						"The current class has no property accessor named '"
-								+ method + "'");
-			
-			String descriptionKey = getDescriptionKey(method);	
-			updateResourceBundleFiles(javaClass.getPackage(), javaClass.getName(), locale, descriptionKey, title, text);
-			Annotation<JavaClass> annotation = null;
-			
-			if (method.hasAnnotation(Description.class)) {
-				throw new IllegalStateException("The element '"
-						+ method.getName() + "' is already annotated with @"
-						+ Description.class.getSimpleName());
-			}
-			if(!method.hasAnnotation(Description.class)){
-				annotation = method.addAnnotation(Description.class);
-				annotation.setStringValue(descriptionKey);
-				saveAndFire(javaClass);
-			} else {
-				annotation = method.getAnnotation(Description.class);
-				if(!descriptionKey.equals(annotation.getStringValue())){
-					annotation.setStringValue(descriptionKey);
-					saveAndFire(javaClass);
-				}
-			}
-		} else if (javaClassOrInterface.isInterface()) {
-			JavaInterface javaInterface = javaClassOrInterface
-					.getJavaInterface();
-			final Method<JavaInterface> method = javaInterface
-					.getMethod(methodName);
-			if (method == null)
-				throw new IllegalStateException(
-						"The current interface has no property accessor named '"
-								+ method + "'");
-
-			String descriptionKey = getDescriptionKey(method);	
-			updateResourceBundleFiles(javaInterface.getPackage(), javaInterface.getName(), locale, descriptionKey, title, text);
-			Annotation<JavaInterface> annotation = null;
-			
-			if(!method.hasAnnotation(Description.class)){
-				annotation = method.addAnnotation(Description.class);
-				annotation.setStringValue(descriptionKey);
-				saveAndFire(javaInterface);
-			} else {
-				annotation = method.getAnnotation(Description.class);
-				if(!descriptionKey.equals(annotation.getStringValue())){
-					annotation.setStringValue(descriptionKey);
-					saveAndFire(javaInterface);
-				}
+		JavaSource<?> javaSource = DescriptionPluginUtils.readCurrentResource(currentResource, javaSourceCache);
+		apply(newDescriptionService().edit(javaSource, new DescriptionService.Edit() {
+			@Override
+			public boolean apply(JavaSource<?> source, DescriptionEditor editor) {
+				return editor.addAccessorDescription(source, methodName, locale, title, text);
 			}
-		}
+		}), true);
 	}
 
 	@Command(value = "generate-description-keys", help = "Add description keys and annotation to class, fields and/or method as specified by hte caller.")
 	public void generateDescriptionKeys(
 			@Option(name = "onAllProperties", flagOnly = true, required=false) boolean onProperties,
 			@Option(name = "onAllAccessors", flagOnly = true, required=false) boolean onAccessors,
+			@Option(name = "recursive", flagOnly = true, required=false, help = "Process all classes and interfaces of the source folder.") boolean recursive,
+			@Option(name = "package", required=false, help = "Restricts the recursive mode to the given package and its sub packages.") String packageName,
+			@Option(name = "force", flagOnly = true, required=false, help = "Processes all sources of the recursive mode, even those unchanged since the last run.") boolean force,
 			final PipeOut out){
+		if(recursive){
+			generateDescriptionKeysRecursive(onProperties, onAccessors, packageName, force, out);
+			return;
+		}
 		final Resource<?> currentResource = shell.getCurrentResource();
-		
+		DescriptionService service = newDescriptionService();
 		if(currentResource instanceof JavaFieldResource){
-			JavaFieldResource jfr =  (JavaFieldResource) currentResource;
-			Field<? extends JavaSource<?>> field = jfr.getUnderlyingResourceObject();
-			Annotation<? extends JavaSource<?>> annotation = field.addAnnotation(Description.class);
-			JavaSource<?> origin = field.getOrigin();
-			String klassQualifiedName = origin.getQualifiedName();
-			String fieldName = field.getName();
-			String descriptionKey = klassQualifiedName + "." + fieldName + "." + DESCRIPTION_CONSTANT;
-			annotation.setStringValue(descriptionKey);
-			updateResourceBundleFiles(origin.getPackage(), origin.getName(), null, descriptionKey, null, null);
-			saveAndFire(origin);
-		
+			Field<? extends JavaSource<?>> field = ((JavaFieldResource) currentResource).getUnderlyingResourceObject();
+			apply(service.generateKeys(field), true);
 		}else if (currentResource instanceof JavaMethodResource){
-			JavaMethodResource jmr =  (JavaMethodResource) currentResource;
-			Method<? extends JavaSource<?>> method = jmr.getUnderlyingResourceObject();
-			Annotation<? extends JavaSource<?>> annotation = method.addAnnotation(Description.class);
-			JavaSource<?> origin = method.getOrigin();
-			String klassQualifiedName = origin.getQualifiedName();
-			String fieldName = method.getName();
-			String descriptionKey = klassQualifiedName + "." + fieldName + "." + DESCRIPTION_CONSTANT;
-			annotation.setStringValue(descriptionKey);
-			updateResourceBundleFiles(origin.getPackage(), origin.getName(), null, descriptionKey, null, null);
-			saveAndFire(origin);
+			Method<? extends JavaSource<?>> method = ((JavaMethodResource) currentResource).getUnderlyingResourceObject();
+			apply(service.generateKeys(method), true);
 		} else if(currentResource instanceof JavaResource){
-			JavaClassOrInterface javaClassOrInterface = DescriptionPluginUtils
-					.inspectResource(currentResource);
-
-			if (javaClassOrInterface.isClass()) {
-				JavaClass clazz = javaClassOrInterface.getJavaClass();
-				
-				if (!clazz.hasAnnotation(Description.class)) {
-					Annotation<JavaClass> annotation = clazz
-							.addAnnotation(Description.class);
-					String descriptionKey = clazz.getQualifiedName() + "."+DESCRIPTION_CONSTANT;
-					annotation.setStringValue(descriptionKey);
-					updateResourceBundleFiles(clazz.getPackage(), clazz.getName(), null, descriptionKey, null, null);
-				}
-				if(onAccessors)
-					addDescriptionOnAccessors(clazz);
-				if(onProperties)
-					addPropertiesOnProperties(clazz);
-				
-				saveAndFire(clazz);
-
-			} else if (javaClassOrInterface.isInterface()) {
-				JavaInterface javaInterface = javaClassOrInterface.getJavaInterface();
-				
-				if (!javaInterface.hasAnnotation(Description.class)) {
-					Annotation<JavaInterface> annotation = javaInterface
-							.addAnnotation(Description.class);
-					String descriptionKey = javaInterface.getQualifiedName() + "."+DESCRIPTION_CONSTANT;
-					annotation.setStringValue(descriptionKey);
-					updateResourceBundleFiles(javaInterface.getPackage(), javaInterface.getName(), null, descriptionKey, null, null);
-				}
-				if(onAccessors)
-					addDescriptionOnAccessors(javaInterface);
-
-				saveAndFire(javaInterface);
-			}
+			JavaSource<?> javaSource = DescriptionPluginUtils.readCurrentResource(currentResource, javaSourceCache);
+			apply(service.generateKeys(javaSource, onProperties, onAccessors), true);
 		}
 	}	
 
-	private void addDescriptionOnAccessors(JavaInterface javaInterface) {
-		List<Method<JavaInterface>> methods = javaInterface.getMethods();
-		for (Method<JavaInterface> method : methods) {
-			String methodName = method.getName();
-			if (methodName == null)
-				continue;
-			if (methodName.startsWith(IS_PREFIX)
-					|| methodName.startsWith(GET_PREFIX)){
-				if(method.hasAnnotation(Description.class))continue;
-				Annotation<JavaInterface> annotation = method.addAnnotation(Description.class);
-				String descriptionKey = javaInterface.getQualifiedName() + "." + methodName + "." + DESCRIPTION_CONSTANT;
-				annotation.setStringValue(descriptionKey);
-				updateResourceBundleFiles(javaInterface.getPackage(), javaInterface.getName(), null, descriptionKey, null, null);
-			}
+	/*
+	 * Parses the sources of the source folder changed since the last run, as
+	 * recorded in the .description-state file of the project, in parallel.
+	 * Each modified source and each bundle file is written once at the end of
+	 * the run.
+	 */
+	private void generateDescriptionKeysRecursive(final boolean onProperties,
+			final boolean onAccessors, String packageName, boolean force, final PipeOut out) {
+		DescriptionService service = newDescriptionService();
+		long start = System.currentTimeMillis();
+		List<File> files = service.listSources(packageName);
+		ChangeSet changeSet;
+		if (force) {
+			changeSet = service.generateKeys(files, onProperties, onAccessors);
+			apply(changeSet, false);
+		} else {
+			DescriptionState state = DescriptionState.load(new File(project.getProjectRoot()
+					.getUnderlyingResourceObject(), DescriptionState.FILE_NAME));
+			changeSet = service.generateKeys(files, onProperties, onAccessors, state);
+			apply(changeSet, false);
+			service.record(changeSet, files, state, packageName == null);
 		}
+		int written = changeSet.getSourcesWritten();
+		int scanned = changeSet.getScanned();
+		int bundles = changeSet.getBundlesWritten();
+		long duration = Math.max(1, System.currentTimeMillis() - start);
+
+		ShellMessages.success(out, "Processed " + scanned + " sources in " + duration + " ms ("
+				+ (scanned * 1000L / duration) + " classes/sec), " + changeSet.getSkipped()
+				+ " unchanged sources skipped, " + written + " sources and " + bundles
+				+ " bundle files written.");
 	}
 
-	private void addPropertiesOnProperties(JavaClass javaClass) {
-		List<Field<JavaClass>> fields = javaClass.getFields();
-		for (Field<JavaClass> field : fields) {
-			if(field.isStatic()) continue;
-			if(field.hasAnnotation(Description.class)) continue;
-			Annotation<JavaClass> annotation = field.addAnnotation(Description.class);
-			String descriptionKey = javaClass.getQualifiedName() + "." + field.getName() + "." + DESCRIPTION_CONSTANT;
-			annotation.setStringValue(descriptionKey);
-			updateResourceBundleFiles(javaClass.getPackage(), javaClass.getName(), null, descriptionKey, null, null);
+	@Command(value = "run-batch", help = "Runs the description, display and format commands of a file with lines of the form: class,member,command[,option=value...]. Each class is parsed and saved once.")
+	public void runBatch(
+			@Option(name = "file", required = true, help = "The batch file, relative to the current directory.") String file,
+			final PipeOut out) throws IOException{
+		DescriptionBatch batch = DescriptionBatch.read(Utils.resolveFile(shell, file));
+		batch.run(project, symbolIndex, newDescriptionEditor(), saveService);
+		ShellMessages.success(out, "Applied " + batch.getOperationCount() + " operations to " + batch.getClassCount()
+				+ " classes: parse " + batch.getParseMillis() + " ms, mutate " + batch.getMutateMillis()
+				+ " ms, write " + batch.getWriteMillis() + " ms; " + batch.getSourcesWritten() + " sources and "
+				+ batch.getBundlesWritten() + " bundle files written.");
+	}
+
+	@Command(value = "verify", help = "Reports the description and validation keys missing or untranslated in a locale bundle and the orphaned bundle keys.")
+	public void verify(
+			@Option(name = "package", required=false, help = "Restricts the scan to the given package and its sub packages.") String packageName,
+			@Option(name = "report", required=false, help = "Writes the issues to this file as lines of the form type,locale,bundle,key.") String report,
+			@Option(name = "failOnIssues", flagOnly = true, required=false, help = "Fails the command if an issue is found.") boolean failOnIssues,
+			final PipeOut out) throws IOException{
+		long start = System.currentTimeMillis();
+		DescriptionVerifier verifier = newDescriptionService().newVerifier();
+		List<DescriptionVerifier.Issue> issues = verifier.verify(packageName);
+		long duration = System.currentTimeMillis() - start;
+
+		ShellMessages.info(out, "Verified " + verifier.getKeyCount() + " keys of " + verifier.getSourceCount()
+				+ " sources against " + verifier.getBundleCount() + " bundles in " + duration + " ms.");
+		for (DescriptionVerifier.IssueType type : DescriptionVerifier.IssueType.values()) {
+			Map<String, Integer> counts = DescriptionVerifier.count(issues, type);
+			if (!counts.isEmpty())
+				ShellMessages.info(out, type + ": " + counts);
 		}
-		
-	}
-
-	private void addDescriptionOnAccessors(JavaClass javaClass) {
-		List<Method<JavaClass>> methods = javaClass.getMethods();
-		for (Method<JavaClass> method : methods) {
-			String methodName = method.getName();
-			if (methodName == null)
-				continue;
-			if (methodName.startsWith(IS_PREFIX)
-					|| methodName.startsWith(GET_PREFIX)){
-				if(method.hasAnnotation(Description.class))continue;
-				Annotation<JavaClass> annotation = method.addAnnotation(Description.class);
-				String descriptionKey = javaClass.getQualifiedName() + "." + methodName + "." + DESCRIPTION_CONSTANT;
-				annotation.setStringValue(descriptionKey);
-				updateResourceBundleFiles(javaClass.getPackage(), javaClass.getName(), null, descriptionKey, null, null);
-			}
+		if (report != null) {
+			File reportFile = Utils.resolveOutputFile(shell, report);
+			DescriptionVerifier.writeReport(reportFile, issues);
+			ShellMessages.info(out, "Report written to " + reportFile);
+		}
+		if (issues.isEmpty()) {
+			ShellMessages.success(out, "No issue found.");
+		} else if (failOnIssues) {
+			throw new IllegalStateException(issues.size() + " description issues found.");
+		} else {
+			ShellMessages.warn(out, issues.size() + " description issues found.");
 		}
 	}
 
-	private void saveAndFire(JavaSource<?> source){
-		final JavaSourceFacet javaSourceFacet = project.getFacet(JavaSourceFacet.class);
-		try {
-			javaSourceFacet.saveJavaSource(source);
-			pickup.fire(new PickupResource(javaSourceFacet.getJavaResource(source)));
-		} catch (FileNotFoundException e) {
-			throw new IllegalStateException(
-					"The current resource '"
-							+ source.getName() + "' was deleted from the file system.");
+	@Command(value = "gc", help = "Removes the bundle keys no longer used by a @Description value or a constraint message of the project.")
+	public void gc(
+			@Option(name = "dryRun", flagOnly = true, required=false, help = "Only reports the keys and bytes that would be removed.") boolean dryRun,
+			final PipeOut out){
+		DescriptionVerifier verifier = newDescriptionService().newVerifier();
+		BundleCollector collector = new BundleCollector();
+		collector.collect(verifier.verify(null), dryRun);
+		String message = collector.getKeys() + " orphaned keys in " + collector.getBundles() + " of "
+				+ verifier.getBundleCount() + " bundles, " + collector.getBytesReclaimed() + " bytes";
+		if (dryRun) {
+			ShellMessages.info(out, "Would remove " + message + ".");
+		} else {
+			ShellMessages.success(out, "Removed " + message + " reclaimed.");
+		}
+	}
+
+	@Command(value = "aggregate-validation-messages", help = "Rebuilds the ValidationMessages bundles of each locale from the constraint messages of all description bundles.")
+	public void aggregateValidationMessages(final PipeOut out){
+		ValidationMessages validationMessages = newDescriptionService().newValidationMessages();
+		validationMessages.rebuild();
+		ShellMessages.success(out, "Aggregated " + validationMessages.getKeys() + " messages of "
+				+ validationMessages.getBundlesRead() + " bundles, " + validationMessages.getBundlesWritten()
+				+ " ValidationMessages bundles written.");
+	}
+
+	@Command(value = "cache-stats", help = "Displays the hit and miss counters of the parsed source cache and the written and skipped source saves.")
+	public void cacheStats(
+			@Option(name = "maxEntries", required=false, help = "Changes the maximal number of cached sources.") Integer maxEntries,
+			@Option(name = "clear", flagOnly = true, required=false, help = "Removes all cached sources and resets the counters.") boolean clear,
+			final PipeOut out){
+		if(maxEntries!=null)
+			javaSourceCache.setMaxEntries(maxEntries);
+		if(clear){
+			javaSourceCache.clear();
+			javaSourceCache.resetStatistics();
+			saveService.resetStatistics();
+		}
+		ShellMessages.info(out, "Parsed source cache: " + javaSourceCache.getStatistics());
+		ShellMessages.info(out, "Source saves: " + saveService.getStatistics());
+	}
+
+	@Command(value = "stats", help = "Displays the durations of the parse, mutate, save, bundle and pickup phases of the plugin commands run in this shell.")
+	public void stats(
+			@Option(name = "trace", required=false, help = "Appends the samples of the next commands to this CSV file as lines of the form timestamp,command,phase,micros,bytes.") String trace,
+			@Option(name = "noTrace", flagOnly = true, required=false, help = "Stops appending samples to the trace file.") boolean noTrace,
+			@Option(name = "reset", flagOnly = true, required=false, help = "Removes all samples.") boolean reset,
+			final PipeOut out){
+		CommandStatistics statistics = CommandStatistics.get();
+		if(reset)
+			statistics.reset();
+		if(noTrace){
+			statistics.setTraceFile(null);
+		} else if(trace!=null){
+			statistics.setTraceFile(Utils.resolveOutputFile(shell, trace));
 		}
+		for (CommandStatistics.PhaseStatistics phase : statistics.getStatistics()) {
+			ShellMessages.info(out, String.format("%s %s: count=%d, p50=%.2f ms, p95=%.2f ms, max=%.2f ms, bytes=%d",
+					phase.getCommand(), phase.getPhase(), phase.getCount(), phase.getPercentileMillis(50),
+					phase.getPercentileMillis(95), phase.getMaxMillis(), phase.getBytes()));
+		}
+		if (statistics.getTraceFile() != null)
+			ShellMessages.info(out, "Tracing to " + statistics.getTraceFile());
+	}
 
+	@Command(value = "bundle-strategy", help = "Sets the layout of new description bundles: one per class (CLASS), per package (PACKAGE) or per module (MODULE).")
+	public void bundleStrategy(
+			@Option(name = "strategy", completer = BundleStrategyCompleter.class, required = false) BundleStrategy bundleStrategy,
+			final PipeOut out) throws IOException{
+		if(bundleStrategy!=null){
+			DescriptionPluginUtils.setBundleStrategy(project, bundleStrategy);
+		}
+		ShellMessages.info(out, "Bundle strategy: " + DescriptionPluginUtils.getBundleStrategy(project));
+	}
+
+	@Command(value = "migrate-bundles", help = "Merges the existing description bundles into the layout of the given strategy and makes it the current strategy.")
+	public void migrateBundles(
+			@Option(name = "strategy", completer = BundleStrategyCompleter.class, required = true) BundleStrategy bundleStrategy,
+			final PipeOut out) throws IOException{
+		BundleStrategy current = DescriptionPluginUtils.getBundleStrategy(project);
+		BundleMigration migration = newDescriptionService().newMigration();
+		migration.migrate(current, bundleStrategy);
+		DescriptionPluginUtils.setBundleStrategy(project, bundleStrategy);
+		for (File deleted : migration.getDeletedBundles()) {
+			ShellMessages.info(out, "Deleted " + deleted);
+		}
+		ShellMessages.success(out, "Merged " + migration.getBundlesRead() + " bundles (" + migration.getKeys()
+				+ " keys) into " + migration.getBundlesWritten() + " bundles of the strategy " + bundleStrategy + ".");
 	}
 
 	/*
-	 * Will update the resource bundle file. We will us a single file for each package.
+	 * The title and text of the single locale options, followed by the values
+	 * of the other locales. Without any value, the keys are only created.
 	 */
-	private void updateResourceBundleFiles(String packageName, String klassSimpleName, String locale, String key, String title, String text){
-		String bundleName = klassSimpleName +(locale!=null?"_"+locale:"")+".properties";
-		
-		PropertiesFileResource propertiesFileResource = getOrCreate(packageName, bundleName);
-		String keyFormated = key.replace(DOT_CONSTANT, UNDERSCORE_CONSTANT);
-		String titleKey = keyFormated + DOT_CONSTANT + TITLE_SUFFIX;
-		String textKey = keyFormated + DOT_CONSTANT + TEXT_SUFFIX;
-		propertiesFileResource.putProperty(titleKey, title);
-		propertiesFileResource.putProperty(textKey, text);
-	}
-
-   /**
-    * Gets another file resource. Creates a file in case it does not exist
-    * 
-    * @param bundleName
-    * @return
-    */
-   protected PropertiesFileResource getOrCreate(final String packageName, final String bundleName)
-   {
-      final ResourceFacet resourceFacet = project.getFacet(ResourceFacet.class);
-      String bundleDirectoryName = packageName.replace(".", File.separator);
-
-      PropertiesFileResource bundleFile = resourceFacet.getResourceFolder().getChildOfType(PropertiesFileResource.class, bundleDirectoryName + File.separator + bundleName);
-      if(!bundleFile.exists())bundleFile.createNewFile();
-      return bundleFile;
-   }   
-   
-   private String getDescriptionKey(Member<?, ?> member){
-	  return member.getOrigin().getName() + UNDERSCORE_CONSTANT + member.getName() + UNDERSCORE_CONSTANT + DESCRIPTION_CONSTANT;
-   }
-
-   private String getValidationKey(Member<?, ?> member, String constraintClass){
-	  return member.getOrigin().getName() + UNDERSCORE_CONSTANT + member.getName() + UNDERSCORE_CONSTANT + constraintClass + UNDERSCORE_CONSTANT + VALIDATION_CONSTANT;
-   }
-   
-	private String getDescriptionKey(JavaType<?> javaType) {
-		return javaType.getName() + UNDERSCORE_CONSTANT + DESCRIPTION_CONSTANT;
-	}
-   
+	private List<LocalizedText> getLocalizedTexts(String locale, String title, String text,
+			String[] values, String valuesFile) throws IOException {
+		List<LocalizedText> texts = new ArrayList<LocalizedText>();
+		if (title != null || text != null || (values == null && valuesFile == null))
+			texts.add(new LocalizedText(locale, title, text));
+		if (values != null) {
+			for (String value : values) {
+				texts.add(LocalizedText.parse(value));
+			}
+		}
+		if (valuesFile != null)
+			texts.addAll(LocalizedText.read(Utils.resolveFile(shell, valuesFile)));
+		return texts;
+	}
+
+	private DescriptionService newDescriptionService() {
+		File sourceFolder = project.getFacet(JavaSourceFacet.class).getSourceFolder().getUnderlyingResourceObject();
+		File resourceFolder = project.getFacet(ResourceFacet.class).getResourceFolder().getUnderlyingResourceObject();
+		return new DescriptionService(sourceFolder, resourceFolder, DescriptionPluginUtils.getBundleStrategy(project));
+	}
+
+	private DescriptionEditor newDescriptionEditor() {
+		DescriptionService service = newDescriptionService();
+		return service.newEditor(service.newChangeSet());
+	}
+
+	/*
+	 * Writes the bundles of the change set and saves its sources through the
+	 * project. Commands on the current resource fire a pickup event.
+	 *
+	 * Returns the number of sources written.
+	 */
+	private int apply(ChangeSet changeSet, boolean fire) {
+		changeSet.flushBundles();
+		int written = 0;
+		for (JavaSource<?> source : changeSet.getSources()) {
+			boolean saved = fire ? saveService.saveAndFire(project, source)
+					: saveService.save(project, source) != null;
+			if (saved)
+				written++;
+		}
+		changeSet.addSourcesWritten(written);
+		return written;
+	}
 }
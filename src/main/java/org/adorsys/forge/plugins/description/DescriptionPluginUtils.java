@@ -1,7 +1,12 @@
 package org.adorsys.forge.plugins.description;
 
+import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.util.Properties;
+
+import org.adorsys.forge.plugins.utils.JavaSourceCache;
+import org.adorsys.forge.plugins.utils.PropertiesFileWriter;
 
 import org.jboss.forge.parser.java.Field;
 import org.jboss.forge.parser.java.JavaClass;
@@ -18,8 +23,10 @@ import org.jboss.forge.resources.java.JavaResource;
 
 public final class DescriptionPluginUtils {
 
+	public static final String BUNDLE_STRATEGY_KEY = "bundle.strategy";
+
 	public static final JavaClassOrInterface inspectResource(
-			Resource<?> resource) {
+			Resource<?> resource, JavaSourceCache javaSourceCache) {
 		if (resource == null) {
 			throw new IllegalArgumentException(
 					"The current resource can not be null");
@@ -37,7 +44,7 @@ public final class DescriptionPluginUtils {
 				javaSource = method.getOrigin();
 			} else if (resource instanceof JavaResource) {
 				final JavaResource javaResource = (JavaResource) resource;
-				javaSource = javaResource.getJavaSource();
+				javaSource = javaSourceCache.getJavaSource(javaResource);
 			} else {
 				throw new IllegalArgumentException("The given resource '"
 						+ resource.getName() + "' is not a Java resource");
@@ -59,7 +66,8 @@ public final class DescriptionPluginUtils {
 		}
 	}
 
-	public static final JavaSource<?> readCurrentResource(Resource<?> resource) {
+	public static final JavaSource<?> readCurrentResource(Resource<?> resource,
+			JavaSourceCache javaSourceCache) {
 		if (resource == null) {
 			throw new IllegalArgumentException("The current resource can not be null");
 		}
@@ -76,7 +84,7 @@ public final class DescriptionPluginUtils {
 				javaSource = method.getOrigin();
 			} else if (resource instanceof JavaResource) {
 				final JavaResource javaResource = (JavaResource) resource;
-				javaSource = javaResource.getJavaSource();
+				javaSource = javaSourceCache.getJavaSource(javaResource);
 			} else {
 				throw new IllegalArgumentException("The given resource '"
 						+ resource.getName() + "' is not a Java resource");
@@ -98,4 +106,25 @@ public final class DescriptionPluginUtils {
 
 	}
 
+	/**
+	 * Reads the bundle strategy from the description.properties file. Defaults
+	 * to one bundle per class.
+	 */
+	public static BundleStrategy getBundleStrategy(Project project) {
+		ResourceFacet resourceFacet = project.getFacet(ResourceFacet.class);
+		return BundleStrategy.read(resourceFacet.getResourceFolder().getUnderlyingResourceObject());
+	}
+
+	public static void setBundleStrategy(Project project, BundleStrategy bundleStrategy) throws IOException {
+		ResourceFacet resourceFacet = project.getFacet(ResourceFacet.class);
+		File descriptionProperties = new File(resourceFacet.getResourceFolder().getUnderlyingResourceObject(), BundleStrategy.DESCRIPTION_PROPERTIES);
+		final String strategy = bundleStrategy.name();
+		PropertiesFileWriter.update(descriptionProperties, new PropertiesFileWriter.Update() {
+			@Override
+			public boolean apply(Properties properties) {
+				return !strategy.equals(properties.setProperty(BUNDLE_STRATEGY_KEY, strategy));
+			}
+		});
+	}
+
 }
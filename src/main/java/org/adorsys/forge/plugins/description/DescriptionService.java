@@ -0,0 +1,314 @@
+package org.adorsys.forge.plugins.description;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+
+import org.adorsys.forge.plugins.utils.BundleSession;
+import org.adorsys.forge.plugins.utils.CommandStatistics;
+import org.adorsys.forge.plugins.utils.CommandStatistics.Phase;
+import org.adorsys.forge.plugins.utils.CommandStatistics.Probe;
+import org.adorsys.forge.plugins.utils.JavaSourceScanner;
+import org.jboss.forge.parser.JavaParser;
+import org.jboss.forge.parser.java.Field;
+import org.jboss.forge.parser.java.JavaClass;
+import org.jboss.forge.parser.java.JavaSource;
+import org.jboss.forge.parser.java.Method;
+
+/**
+ * The description commands as a plain java API, free of the shell and of the
+ * project model. Operations take a parsed source or a source file and return
+ * a {@link ChangeSet} of the modified sources and bundle entries; the caller
+ * decides how it is written. The shell plugin saves it through the project,
+ * the {@link DescriptionLauncher} writes it to the source folder.
+ *
+ * @author francis pouatcha
+ *
+ */
+public class DescriptionService {
+
+	/**
+	 * An edit of a parsed source.
+	 */
+	public interface Edit {
+		/**
+		 * @return true if the source was modified and has to be saved.
+		 */
+		boolean apply(JavaSource<?> javaSource, DescriptionEditor editor);
+	}
+
+	private static final String JAVA_EXTENSION = ".java";
+
+	private final File sourceFolder;
+	private final File resourceFolder;
+	private final BundleStrategy bundleStrategy;
+
+	public DescriptionService(File sourceFolder, File resourceFolder, BundleStrategy bundleStrategy) {
+		this.sourceFolder = sourceFolder;
+		this.resourceFolder = resourceFolder;
+		this.bundleStrategy = bundleStrategy;
+	}
+
+	/**
+	 * A service using the bundle strategy configured in the resource folder.
+	 */
+	public DescriptionService(File sourceFolder, File resourceFolder) {
+		this(sourceFolder, resourceFolder, BundleStrategy.read(resourceFolder));
+	}
+
+	public ChangeSet newChangeSet() {
+		return new ChangeSet(new BundleSession());
+	}
+
+	/**
+	 * @return an editor buffering its bundle entries in the change set.
+	 */
+	public DescriptionEditor newEditor(ChangeSet changeSet) {
+		return new DescriptionEditor(newKeyGenerator(changeSet));
+	}
+
+	public DescriptionKeyGenerator newKeyGenerator(ChangeSet changeSet) {
+		return new DescriptionKeyGenerator(resourceFolder, bundleStrategy, changeSet.getBundleSession());
+	}
+
+	/**
+	 * Applies the edit to a parsed source.
+	 */
+	public ChangeSet edit(JavaSource<?> javaSource, Edit edit) {
+		ChangeSet changeSet = newChangeSet();
+		Probe probe = CommandStatistics.get().start(Phase.MUTATE, javaSource.getQualifiedName());
+		if (edit.apply(javaSource, newEditor(changeSet)))
+			changeSet.addSource(javaSource);
+		probe.end(0);
+		changeSet.setScanned(1);
+		return changeSet;
+	}
+
+	/**
+	 * Parses the source file and applies the edit.
+	 */
+	public ChangeSet edit(File file, Edit edit) {
+		try {
+			return edit(JavaParser.parse(file), edit);
+		} catch (FileNotFoundException e) {
+			throw new IllegalStateException("The source file '" + file + "' does not exist.", e);
+		}
+	}
+
+	/**
+	 * Generates the description keys of a parsed source.
+	 */
+	public ChangeSet generateKeys(JavaSource<?> javaSource, boolean onProperties, boolean onAccessors) {
+		ChangeSet changeSet = newChangeSet();
+		if (newKeyGenerator(changeSet).generate(javaSource, onProperties, onAccessors))
+			changeSet.addSource(javaSource);
+		changeSet.setScanned(1);
+		return changeSet;
+	}
+
+	/**
+	 * Generates the description key of a single field.
+	 */
+	public ChangeSet generateKeys(Field<? extends JavaSource<?>> field) {
+		ChangeSet changeSet = newChangeSet();
+		if (newKeyGenerator(changeSet).generate(field))
+			changeSet.addSource(field.getOrigin());
+		changeSet.setScanned(1);
+		return changeSet;
+	}
+
+	/**
+	 * Generates the description key of a single accessor.
+	 */
+	public ChangeSet generateKeys(Method<? extends JavaSource<?>> method) {
+		ChangeSet changeSet = newChangeSet();
+		if (newKeyGenerator(changeSet).generate(method))
+			changeSet.addSource(method.getOrigin());
+		changeSet.setScanned(1);
+		return changeSet;
+	}
+
+	/**
+	 * Parses the source files in parallel and generates their description
+	 * keys. All sources share the bundle entries of the change set.
+	 */
+	public ChangeSet generateKeys(List<File> files, boolean onProperties, boolean onAccessors) {
+		return generateKeys(files, onProperties, onAccessors, false);
+	}
+
+	/**
+	 * Generates the description keys of the source files and, if requested,
+	 * adds the missing default bundle entries of the keys already present.
+	 */
+	public ChangeSet generateKeys(List<File> files, final boolean onProperties, final boolean onAccessors,
+			final boolean syncBundles) {
+		final ChangeSet changeSet = newChangeSet();
+		final DescriptionKeyGenerator generator = newKeyGenerator(changeSet);
+		int scanned = JavaSourceScanner.scan(files, new JavaSourceScanner.Visitor() {
+			@Override
+			public void visit(File file, JavaSource<?> javaSource) {
+				Probe probe = CommandStatistics.get().start(Phase.MUTATE, javaSource.getQualifiedName());
+				if (generator.generate(javaSource, onProperties, onAccessors))
+					changeSet.addSource(javaSource);
+				if (syncBundles)
+					generator.syncBundles(javaSource);
+				probe.end(0);
+			}
+		});
+		changeSet.setScanned(scanned);
+		return changeSet;
+	}
+
+	/**
+	 * Generates the description keys of the source files that changed since
+	 * they were recorded in the state, or whose default bundle lost one of
+	 * their keys. Processed sources also get the missing bundle entries of
+	 * their keys. Once the change set is applied, it is recorded with
+	 * {@link #record(ChangeSet, List, DescriptionState, boolean)}.
+	 */
+	public ChangeSet generateKeys(List<File> files, final boolean onProperties, final boolean onAccessors,
+			DescriptionState state) {
+		state.checkOptions(bundleStrategy + "," + onProperties + "," + onAccessors);
+		Map<File, Properties> bundles = new HashMap<File, Properties>();
+		List<File> stale = new ArrayList<File>();
+		for (File file : files) {
+			File bundleFile = getBundleFile(file);
+			if (!state.isUnchanged(file)
+					|| (!state.isUnchanged(bundleFile) && !hasKeys(bundleFile, state.getKeys(file), bundles)))
+				stale.add(file);
+		}
+
+		final ChangeSet changeSet = newChangeSet();
+		final DescriptionKeyGenerator generator = newKeyGenerator(changeSet);
+		int scanned = JavaSourceScanner.scan(stale, new JavaSourceScanner.Visitor() {
+			@Override
+			public void visit(File file, JavaSource<?> javaSource) {
+				Probe probe = CommandStatistics.get().start(Phase.MUTATE, javaSource.getQualifiedName());
+				if (generator.generate(javaSource, onProperties, onAccessors))
+					changeSet.addSource(javaSource);
+				changeSet.setKeys(file, generator.syncBundles(javaSource));
+				probe.end(0);
+			}
+		});
+		changeSet.setScanned(scanned);
+		changeSet.setSkipped(files.size() - scanned);
+		return changeSet;
+	}
+
+	/**
+	 * Records the processed sources of an applied change set and the bundles
+	 * of the given sources in the state and stores it.
+	 *
+	 * @param complete
+	 *            true if the files are all sources of the project; the state
+	 *            of other files is then dropped.
+	 */
+	public void record(ChangeSet changeSet, List<File> files, DescriptionState state, boolean complete) {
+		for (Map.Entry<File, Set<String>> entry : changeSet.getKeys().entrySet()) {
+			state.update(entry.getKey());
+			state.setKeys(entry.getKey(), entry.getValue());
+		}
+		Set<File> bundleFiles = new HashSet<File>();
+		for (File file : files) {
+			bundleFiles.add(getBundleFile(file));
+		}
+		for (File bundleFile : bundleFiles) {
+			if (!state.isUnchanged(bundleFile))
+				state.update(bundleFile);
+		}
+		if (complete)
+			state.retain(files, bundleFiles);
+		state.store();
+	}
+
+	/**
+	 * @return the default bundle of a source file of the source folder.
+	 */
+	public File getBundleFile(File sourceFile) {
+		String path = sourceFile.getAbsolutePath().substring(sourceFolder.getAbsolutePath().length() + 1);
+		int separator = path.lastIndexOf(File.separatorChar);
+		String packageName = separator < 0 ? "" : path.substring(0, separator).replace(File.separatorChar, '.');
+		String simpleName = path.substring(separator + 1, path.length() - JAVA_EXTENSION.length());
+		return new File(resourceFolder, bundleStrategy.getBundlePath(packageName, simpleName, null));
+	}
+
+	/*
+	 * Tells if the bundle has the title entries of all keys. Bundles are
+	 * loaded once per run.
+	 */
+	private static boolean hasKeys(File bundleFile, Set<String> keys, Map<File, Properties> bundles) {
+		if (keys.isEmpty())
+			return true;
+		Properties properties = bundles.get(bundleFile);
+		if (properties == null) {
+			properties = BundleSession.load(bundleFile);
+			bundles.put(bundleFile, properties);
+		}
+		for (String key : keys) {
+			if (properties.getProperty(key + DescriptionPlugin.DOT_CONSTANT + DescriptionPlugin.TITLE_SUFFIX) == null)
+				return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Parses the source files in parallel and adds the message keys of the
+	 * constraints present on the fields of each class. All classes share the
+	 * bundle entries of the change set.
+	 */
+	public ChangeSet addAllValidationMessages(List<File> files) {
+		final ChangeSet changeSet = newChangeSet();
+		final DescriptionEditor editor = newEditor(changeSet);
+		int scanned = JavaSourceScanner.scan(files, new JavaSourceScanner.Visitor() {
+			@Override
+			public void visit(File file, JavaSource<?> javaSource) {
+				if (!javaSource.isClass())
+					return;
+				Probe probe = CommandStatistics.get().start(Phase.MUTATE, javaSource.getQualifiedName());
+				if (editor.addAllValidationMessages((JavaClass) javaSource))
+					changeSet.addSource(javaSource);
+				probe.end(0);
+			}
+		});
+		changeSet.setScanned(scanned);
+		return changeSet;
+	}
+
+	/**
+	 * Lists the source files of the given package and its sub packages, or of
+	 * the whole source folder.
+	 */
+	public List<File> listSources(String packageName) {
+		return JavaSourceScanner.listJavaFiles(sourceFolder, packageName);
+	}
+
+	public DescriptionVerifier newVerifier() {
+		return new DescriptionVerifier(sourceFolder, resourceFolder, bundleStrategy);
+	}
+
+	public BundleMigration newMigration() {
+		return new BundleMigration(sourceFolder, resourceFolder);
+	}
+
+	public ValidationMessages newValidationMessages() {
+		return new ValidationMessages(resourceFolder);
+	}
+
+	public File getSourceFolder() {
+		return sourceFolder;
+	}
+
+	public File getResourceFolder() {
+		return resourceFolder;
+	}
+
+	public BundleStrategy getBundleStrategy() {
+		return bundleStrategy;
+	}
+}
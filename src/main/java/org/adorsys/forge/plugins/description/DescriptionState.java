@@ -0,0 +1,186 @@
+package org.adorsys.forge.plugins.description;
+
+import java.io.File;
+import java.math.BigInteger;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.adorsys.forge.plugins.utils.BundleSession;
+import org.adorsys.forge.plugins.utils.PropertiesFileWriter;
+import org.adorsys.forge.plugins.utils.SaveService;
+import org.apache.commons.lang3.StringUtils;
+
+/**
+ * The .description-state manifest of a project: the content hash of every
+ * source and default bundle seen by the last project wide run, and the
+ * bundle keys of each source. A source whose hash and bundle did not change
+ * is not parsed again.
+ *
+ * Files are only hashed if their modification time or size differs from the
+ * recorded one, so that an unchanged project is checked without reading any
+ * source. Paths are relative to the directory of the manifest.
+ *
+ * @author francis pouatcha
+ *
+ */
+public class DescriptionState {
+
+	public static final String FILE_NAME = ".description-state";
+
+	private static final String OPTIONS_KEY = "options";
+	private static final String FILE_PREFIX = "file.";
+	private static final String KEYS_PREFIX = "keys.";
+	private static final String SEPARATOR = ",";
+
+	private final File file;
+	private final File baseDir;
+	private final Map<String, FileState> files = new HashMap<String, FileState>();
+	private final Map<String, Set<String>> keys = new HashMap<String, Set<String>>();
+	private String options;
+
+	private DescriptionState(File file) {
+		this.file = file;
+		this.baseDir = file.getAbsoluteFile().getParentFile();
+	}
+
+	/**
+	 * Loads the manifest, empty if the file does not exist.
+	 */
+	public static DescriptionState load(File file) {
+		DescriptionState state = new DescriptionState(file);
+		Properties properties = BundleSession.load(file);
+		for (String name : properties.stringPropertyNames()) {
+			String value = properties.getProperty(name);
+			if (name.startsWith(FILE_PREFIX)) {
+				String[] parts = value.split(SEPARATOR);
+				if (parts.length == 3)
+					state.files.put(name.substring(FILE_PREFIX.length()),
+							new FileState(Long.parseLong(parts[0]), Long.parseLong(parts[1]), parts[2]));
+			} else if (name.startsWith(KEYS_PREFIX)) {
+				Set<String> sourceKeys = new TreeSet<String>();
+				for (String key : value.split(SEPARATOR)) {
+					if (key.length() > 0)
+						sourceKeys.add(key);
+				}
+				state.keys.put(name.substring(KEYS_PREFIX.length()), sourceKeys);
+			} else if (OPTIONS_KEY.equals(name)) {
+				state.options = value;
+			}
+		}
+		return state;
+	}
+
+	/**
+	 * Forgets all recorded files if they were processed with other options.
+	 */
+	public synchronized void checkOptions(String options) {
+		if (options.equals(this.options))
+			return;
+		files.clear();
+		keys.clear();
+		this.options = options;
+	}
+
+	/**
+	 * Tells if the file has the recorded content. A missing file is unchanged
+	 * if it was recorded as missing.
+	 */
+	public synchronized boolean isUnchanged(File file) {
+		String path = getPath(file);
+		FileState recorded = files.get(path);
+		if (recorded == null)
+			return false;
+		if (!file.exists())
+			return recorded.hash.length() == 0;
+		if (recorded.lastModified == file.lastModified() && recorded.length == file.length())
+			return true;
+		if (!recorded.hash.equals(hash(file)))
+			return false;
+		files.put(path, new FileState(file.lastModified(), file.length(), recorded.hash));
+		return true;
+	}
+
+	/**
+	 * Records the current content of the file.
+	 */
+	public synchronized void update(File file) {
+		String hash = file.exists() ? hash(file) : "";
+		files.put(getPath(file), new FileState(file.lastModified(), file.length(), hash));
+	}
+
+	/**
+	 * @return the bundle keys recorded for the source.
+	 */
+	public synchronized Set<String> getKeys(File source) {
+		Set<String> sourceKeys = keys.get(getPath(source));
+		return sourceKeys == null ? Collections.<String> emptySet() : sourceKeys;
+	}
+
+	public synchronized void setKeys(File source, Set<String> sourceKeys) {
+		keys.put(getPath(source), new TreeSet<String>(sourceKeys));
+	}
+
+	/**
+	 * Drops the sources not in the given list and the bundles no longer used
+	 * by them.
+	 */
+	public synchronized void retain(Collection<File> sources, Collection<File> bundles) {
+		Set<String> paths = new TreeSet<String>();
+		for (File source : sources) {
+			paths.add(getPath(source));
+		}
+		keys.keySet().retainAll(paths);
+		for (File bundle : bundles) {
+			paths.add(getPath(bundle));
+		}
+		files.keySet().retainAll(paths);
+	}
+
+	public synchronized int size() {
+		return keys.size();
+	}
+
+	public synchronized void store() {
+		Properties properties = new Properties();
+		if (options != null)
+			properties.setProperty(OPTIONS_KEY, options);
+		for (Map.Entry<String, FileState> entry : files.entrySet()) {
+			FileState state = entry.getValue();
+			properties.setProperty(FILE_PREFIX + entry.getKey(), state.lastModified + SEPARATOR + state.length
+					+ SEPARATOR + state.hash);
+		}
+		for (Map.Entry<String, Set<String>> entry : keys.entrySet()) {
+			properties.setProperty(KEYS_PREFIX + entry.getKey(), StringUtils.join(entry.getValue(), SEPARATOR));
+		}
+		PropertiesFileWriter.store(file, properties);
+	}
+
+	private String getPath(File file) {
+		String path = file.getAbsolutePath();
+		String base = baseDir.getAbsolutePath() + File.separator;
+		if (path.startsWith(base))
+			path = path.substring(base.length());
+		return path.replace(File.separatorChar, '/');
+	}
+
+	private static String hash(File file) {
+		return new BigInteger(1, SaveService.hash(file)).toString(16);
+	}
+
+	private static class FileState {
+		private final long lastModified;
+		private final long length;
+		private final String hash;
+
+		FileState(long lastModified, long length, String hash) {
+			this.lastModified = lastModified;
+			this.length = length;
+			this.hash = hash;
+		}
+	}
+}
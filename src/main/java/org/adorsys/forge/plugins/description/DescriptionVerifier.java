@@ -0,0 +1,400 @@
+package org.adorsys.forge.plugins.description;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.regex.Pattern;
+
+import org.adorsys.forge.plugins.utils.BundleSession;
+import org.adorsys.forge.plugins.utils.JavaSourceScanner;
+import org.adorsys.forge.plugins.utils.Utils;
+import org.adorsys.javaext.description.Description;
+import org.jboss.forge.parser.java.Annotation;
+import org.jboss.forge.parser.java.Field;
+import org.jboss.forge.parser.java.JavaClass;
+import org.jboss.forge.parser.java.JavaInterface;
+import org.jboss.forge.parser.java.JavaSource;
+import org.jboss.forge.parser.java.Method;
+
+/**
+ * Compares the description and validation keys of all sources with the
+ * entries of the description bundles. Sources are parsed and bundles are
+ * loaded in parallel; the comparison itself works on in-memory key sets.
+ *
+ * A key is missing in a locale if its title or text entry does not exist in
+ * the bundle of that locale, untranslated if both entries exist but are
+ * empty. A bundle entry is orphaned if no source uses its key.
+ *
+ * @author francis pouatcha
+ *
+ */
+public class DescriptionVerifier {
+
+	public enum IssueType {
+		MISSING, UNTRANSLATED, ORPHAN
+	}
+
+	public static final String DEFAULT_LOCALE = "default";
+
+	private static final String MESSAGE_ATTRIBUTE = "message";
+	private static final String TITLE_SUFFIX = DescriptionPlugin.DOT_CONSTANT
+			+ DescriptionPlugin.TITLE_SUFFIX;
+	private static final String TEXT_SUFFIX = DescriptionPlugin.DOT_CONSTANT
+			+ DescriptionPlugin.TEXT_SUFFIX;
+	static final Pattern LOCALE_PATTERN = Pattern
+			.compile("[a-z]{2,3}(_[A-Z]{2}(_\\w+)?)?");
+
+	private final File sourceFolder;
+	private final File resourceFolder;
+	private final BundleStrategy bundleStrategy;
+
+	/*
+	 * Keys used by the sources, by bundle path without locale and extension.
+	 */
+	private final Map<String, Set<String>> keysByBundle = new ConcurrentHashMap<String, Set<String>>();
+	/*
+	 * Loaded bundles by bundle path without locale and extension, then by
+	 * locale.
+	 */
+	private final Map<String, Map<String, Bundle>> bundles = new TreeMap<String, Map<String, Bundle>>();
+	private final Set<String> locales = new TreeSet<String>();
+
+	private int sourceCount;
+	private int bundleCount;
+	private int keyCount;
+
+	public DescriptionVerifier(File sourceFolder, File resourceFolder,
+			BundleStrategy bundleStrategy) {
+		this.sourceFolder = sourceFolder;
+		this.resourceFolder = resourceFolder;
+		this.bundleStrategy = bundleStrategy;
+	}
+
+	/**
+	 * Scans the sources of the given package, or all sources if the package
+	 * is null, and their bundles.
+	 *
+	 * @return the issues sorted by bundle, locale and key.
+	 */
+	public List<Issue> verify(String packageName) {
+		sourceCount = JavaSourceScanner.scan(
+				JavaSourceScanner.listJavaFiles(sourceFolder, packageName),
+				new JavaSourceScanner.Visitor() {
+					@Override
+					public void visit(File file, JavaSource<?> javaSource) {
+						collectKeys(javaSource);
+					}
+				});
+		loadBundles();
+		/*
+		 * A module bundle also holds the keys of the packages not scanned.
+		 */
+		boolean reportOrphans = packageName == null || packageName.trim().length() == 0
+				|| bundleStrategy != BundleStrategy.MODULE;
+
+		Set<String> allLocales = new TreeSet<String>(locales);
+		allLocales.add(DEFAULT_LOCALE);
+		List<Issue> issues = new ArrayList<Issue>();
+		for (Entry<String, Map<String, Bundle>> entry : bundles.entrySet()) {
+			Set<String> keys = new TreeSet<String>(keysByBundle.get(entry.getKey()));
+			keyCount += keys.size();
+			Map<String, Bundle> localeBundles = entry.getValue();
+			for (String locale : allLocales) {
+				Bundle bundle = localeBundles.get(locale);
+				Properties properties = bundle != null ? bundle.properties : new Properties();
+				String bundlePath = bundle != null ? bundle.path : getBundlePath(entry.getKey(), locale);
+				for (String key : keys) {
+					String title = properties.getProperty(key + TITLE_SUFFIX);
+					String text = properties.getProperty(key + TEXT_SUFFIX);
+					if (title == null || text == null) {
+						issues.add(new Issue(IssueType.MISSING, locale, bundlePath, key, bundle != null ? bundle.file : null));
+					} else if (title.trim().length() == 0 && text.trim().length() == 0) {
+						issues.add(new Issue(IssueType.UNTRANSLATED, locale, bundlePath, key, bundle.file));
+					}
+				}
+				if (bundle == null || !reportOrphans)
+					continue;
+				for (String orphan : getOrphanKeys(properties, keys)) {
+					issues.add(new Issue(IssueType.ORPHAN, locale, bundlePath, orphan, bundle.file));
+				}
+			}
+		}
+		return issues;
+	}
+
+	private static Set<String> getOrphanKeys(Properties properties, Set<String> keys) {
+		Set<String> orphans = new TreeSet<String>();
+		for (String entry : properties.stringPropertyNames()) {
+			String key;
+			if (entry.endsWith(TITLE_SUFFIX)) {
+				key = entry.substring(0, entry.length() - TITLE_SUFFIX.length());
+			} else if (entry.endsWith(TEXT_SUFFIX)) {
+				key = entry.substring(0, entry.length() - TEXT_SUFFIX.length());
+			} else {
+				continue;
+			}
+			if (!keys.contains(key))
+				orphans.add(key);
+		}
+		return orphans;
+	}
+
+	private void collectKeys(JavaSource<?> javaSource) {
+		Set<String> keys = new HashSet<String>();
+		if (javaSource.isClass()) {
+			JavaClass javaClass = (JavaClass) javaSource;
+			addKey(keys, javaClass.getAnnotation(Description.class));
+			for (Field<JavaClass> field : javaClass.getFields()) {
+				for (Annotation<JavaClass> annotation : field.getAnnotations()) {
+					if (annotation.getQualifiedName().equals(Description.class.getName())) {
+						addKey(keys, annotation);
+					} else {
+						String message = annotation.isNormal() ? annotation.getStringValue(MESSAGE_ATTRIBUTE) : null;
+						if (message != null && ValidationMessages.isValidationKey(message))
+							keys.add(normalize(ValidationMessages.getKey(message)));
+					}
+				}
+			}
+			for (Method<JavaClass> method : javaClass.getMethods()) {
+				addKey(keys, method.getAnnotation(Description.class));
+			}
+		} else if (javaSource.isInterface()) {
+			JavaInterface javaInterface = (JavaInterface) javaSource;
+			addKey(keys, javaInterface.getAnnotation(Description.class));
+			for (Method<JavaInterface> method : javaInterface.getMethods()) {
+				addKey(keys, method.getAnnotation(Description.class));
+			}
+		} else {
+			return;
+		}
+		String bundleBase = getBundleBase(javaSource.getPackage(), javaSource.getName());
+		Set<String> bundleKeys = keysByBundle.get(bundleBase);
+		if (bundleKeys == null) {
+			synchronized (keysByBundle) {
+				bundleKeys = keysByBundle.get(bundleBase);
+				if (bundleKeys == null) {
+					bundleKeys = Collections.synchronizedSet(new HashSet<String>());
+					keysByBundle.put(bundleBase, bundleKeys);
+				}
+			}
+		}
+		bundleKeys.addAll(keys);
+	}
+
+	private static void addKey(Set<String> keys, Annotation<?> annotation) {
+		if (annotation == null)
+			return;
+		String key = annotation.getStringValue();
+		if (key != null && key.length() > 0)
+			keys.add(normalize(key));
+	}
+
+	/*
+	 * Bundle entries are written with underscores instead of dots.
+	 */
+	private static String normalize(String key) {
+		return key.replace(DescriptionPlugin.DOT_CONSTANT, DescriptionPlugin.UNDERSCORE_CONSTANT);
+	}
+
+	private String getBundleBase(String packageName, String klassSimpleName) {
+		String path = bundleStrategy.getBundlePath(packageName == null ? "" : packageName, klassSimpleName, null);
+		return path.substring(0, path.length() - BundleStrategy.PROPERTIES_EXTENSION.length());
+	}
+
+	private static String getBundlePath(String bundleBase, String locale) {
+		return bundleBase + (DEFAULT_LOCALE.equals(locale) ? "" : "_" + locale)
+				+ BundleStrategy.PROPERTIES_EXTENSION;
+	}
+
+	/*
+	 * Lists the locale variants of each bundle and loads them in parallel.
+	 */
+	private void loadBundles() {
+		List<Bundle> toLoad = new ArrayList<Bundle>();
+		for (String bundleBase : keysByBundle.keySet()) {
+			Map<String, Bundle> localeBundles = new TreeMap<String, Bundle>();
+			bundles.put(bundleBase, localeBundles);
+			File baseFile = new File(resourceFolder, bundleBase);
+			String[] names = baseFile.getParentFile().list();
+			if (names == null)
+				continue;
+			String baseName = baseFile.getName();
+			for (String name : names) {
+				if (!name.startsWith(baseName) || !name.endsWith(BundleStrategy.PROPERTIES_EXTENSION))
+					continue;
+				String suffix = name.substring(baseName.length(), name.length()
+						- BundleStrategy.PROPERTIES_EXTENSION.length());
+				String locale;
+				if (suffix.length() == 0) {
+					locale = DEFAULT_LOCALE;
+				} else if (suffix.startsWith("_") && LOCALE_PATTERN.matcher(suffix.substring(1)).matches()) {
+					locale = suffix.substring(1);
+					locales.add(locale);
+				} else {
+					continue;
+				}
+				Bundle bundle = new Bundle(new File(baseFile.getParentFile(), name), getBundlePath(bundleBase, locale));
+				localeBundles.put(locale, bundle);
+				toLoad.add(bundle);
+			}
+		}
+		bundleCount = toLoad.size();
+
+		int threads = Math.max(1, Math.min(Runtime.getRuntime().availableProcessors(), toLoad.size()));
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		try {
+			List<Future<?>> futures = new ArrayList<Future<?>>(toLoad.size());
+			for (final Bundle bundle : toLoad) {
+				futures.add(executor.submit(new Callable<Void>() {
+					@Override
+					public Void call() {
+						bundle.properties = BundleSession.load(bundle.file);
+						return null;
+					}
+				}));
+			}
+			for (Future<?> future : futures) {
+				future.get();
+			}
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof RuntimeException)
+				throw (RuntimeException) cause;
+			throw new IllegalStateException(cause);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException(e);
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	/**
+	 * Writes the issues as comma separated lines of the form
+	 * type,locale,bundle,key.
+	 */
+	public static void writeReport(File reportFile, List<Issue> issues) throws IOException {
+		File parent = reportFile.getParentFile();
+		if (parent != null && !parent.exists())
+			parent.mkdirs();
+		Writer writer = new OutputStreamWriter(new FileOutputStream(reportFile), "UTF-8");
+		try {
+			writer.write("# type,locale,bundle,key\n");
+			for (Issue issue : issues) {
+				writer.write(issue.getType() + "," + issue.getLocale() + ","
+						+ issue.getBundle().replace(File.separatorChar, '/') + "," + issue.getKey() + "\n");
+			}
+		} finally {
+			Utils.closeQuietly(writer);
+		}
+	}
+
+	/**
+	 * @return the number of issues of the given type by locale.
+	 */
+	public static Map<String, Integer> count(List<Issue> issues, IssueType type) {
+		Map<String, Integer> result = new TreeMap<String, Integer>();
+		for (Issue issue : issues) {
+			if (issue.getType() != type)
+				continue;
+			Integer count = result.get(issue.getLocale());
+			result.put(issue.getLocale(), count == null ? 1 : count + 1);
+		}
+		return result;
+	}
+
+	public int getSourceCount() {
+		return sourceCount;
+	}
+
+	public int getBundleCount() {
+		return bundleCount;
+	}
+
+	public int getKeyCount() {
+		return keyCount;
+	}
+
+	public Set<String> getLocales() {
+		return locales;
+	}
+
+	private static class Bundle {
+		private final File file;
+		private final String path;
+		private Properties properties;
+
+		Bundle(File file, String path) {
+			this.file = file;
+			this.path = path;
+		}
+	}
+
+	/**
+	 * A key missing or untranslated in a bundle, or an orphaned bundle key.
+	 */
+	public static class Issue {
+		private final IssueType type;
+		private final String locale;
+		private final String bundle;
+		private final String key;
+		private final File bundleFile;
+
+		Issue(IssueType type, String locale, String bundle, String key, File bundleFile) {
+			this.type = type;
+			this.locale = locale;
+			this.bundle = bundle;
+			this.key = key;
+			this.bundleFile = bundleFile;
+		}
+
+		public IssueType getType() {
+			return type;
+		}
+
+		public String getLocale() {
+			return locale;
+		}
+
+		/**
+		 * @return the bundle path relative to the resource folder.
+		 */
+		public String getBundle() {
+			return bundle;
+		}
+
+		public String getKey() {
+			return key;
+		}
+
+		/**
+		 * @return the bundle file or null if the bundle does not exist.
+		 */
+		public File getBundleFile() {
+			return bundleFile;
+		}
+
+		@Override
+		public String toString() {
+			return type + " " + locale + " " + bundle + " " + key;
+		}
+	}
+}
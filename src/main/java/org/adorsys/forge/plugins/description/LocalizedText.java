@@ -0,0 +1,81 @@
+package org.adorsys.forge.plugins.description;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.adorsys.forge.plugins.utils.CsvReader;
+import org.adorsys.forge.plugins.utils.Utils;
+import org.apache.commons.lang3.StringUtils;
+
+/**
+ * The title and text of a description or message in one locale. A null
+ * locale stands for the default bundle.
+ *
+ * @author francis pouatcha
+ *
+ */
+public class LocalizedText {
+
+	private static final String SEPARATOR = ":";
+	private static final String DEFAULT_LOCALE = "default";
+
+	private final String locale;
+	private final String title;
+	private final String text;
+
+	public LocalizedText(String locale, String title, String text) {
+		this.locale = StringUtils.isBlank(locale)
+				|| DEFAULT_LOCALE.equalsIgnoreCase(locale.trim()) ? null : locale.trim();
+		this.title = title;
+		this.text = text;
+	}
+
+	/**
+	 * Parses a value of the form locale:title:text. The text may contain
+	 * colons, an empty locale stands for the default bundle.
+	 */
+	public static LocalizedText parse(String value) {
+		String[] parts = value.split(SEPARATOR, 3);
+		if (parts.length < 2)
+			throw new IllegalStateException("The value '" + value
+					+ "' is not of the form locale:title[:text]");
+		return new LocalizedText(parts[0], emptyToNull(parts[1]),
+				parts.length > 2 ? emptyToNull(parts[2]) : null);
+	}
+
+	/**
+	 * Reads the rows of a file of the form locale,title[,text].
+	 */
+	public static List<LocalizedText> read(File file) throws IOException {
+		List<LocalizedText> result = new ArrayList<LocalizedText>();
+		CsvReader reader = new CsvReader(file);
+		try {
+			String[] row;
+			while ((row = reader.readRow(2)) != null) {
+				result.add(new LocalizedText(row[0], emptyToNull(row[1]),
+						row.length > 2 ? emptyToNull(row[2]) : null));
+			}
+		} finally {
+			Utils.closeQuietly(reader);
+		}
+		return result;
+	}
+
+	private static String emptyToNull(String value) {
+		return StringUtils.isEmpty(value) ? null : value;
+	}
+
+	public String getLocale() {
+		return locale;
+	}
+
+	public String getTitle() {
+		return title;
+	}
+
+	public String getText() {
+		return text;
+	}
+}
@@ -0,0 +1,231 @@
+package org.adorsys.forge.plugins.description;
+
+import java.io.File;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Properties;
+import java.util.TreeMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.adorsys.forge.plugins.utils.BundleSession;
+import org.adorsys.forge.plugins.utils.PropertiesFileWriter;
+import org.apache.commons.lang3.StringUtils;
+
+/**
+ * The ValidationMessages[_locale].properties bundles of the resource folder,
+ * the only bundles read by the validator. They aggregate the constraint
+ * messages of all description bundles, one entry per message key with the
+ * text of the message, or its title if it has no text. Constraints refer to
+ * them with a message template of the form {key}.
+ *
+ * The {@link DescriptionKeyGenerator} buffers the messages set by a command
+ * into these bundles along with the description bundles, so that only the
+ * keys of the modified classes are merged. {@link #rebuild()} merges the
+ * messages of all description bundles of the resource folder. Entries that
+ * are not constraint message keys are never touched, so that hand written
+ * messages survive.
+ *
+ * @author francis pouatcha
+ *
+ */
+public class ValidationMessages {
+
+	public static final String BUNDLE_BASE_NAME = "ValidationMessages";
+
+	private static final String TEMPLATE_PREFIX = "{";
+	private static final String TEMPLATE_SUFFIX = "}";
+	private static final String VALIDATION_SUFFIX = DescriptionPlugin.UNDERSCORE_CONSTANT
+			+ DescriptionPlugin.VALIDATION_CONSTANT;
+	private static final String TITLE_SUFFIX = DescriptionPlugin.DOT_CONSTANT
+			+ DescriptionPlugin.TITLE_SUFFIX;
+	private static final String TEXT_SUFFIX = DescriptionPlugin.DOT_CONSTANT
+			+ DescriptionPlugin.TEXT_SUFFIX;
+	private static final Pattern BUNDLE_NAME_PATTERN = Pattern
+			.compile("(.+?)(_([a-z]{2,3}(_[A-Z]{2}(_\\w+)?)?))?\\" + BundleStrategy.PROPERTIES_EXTENSION);
+
+	private final File resourceFolder;
+
+	private int bundlesRead;
+	private int bundlesWritten;
+	private int keys;
+
+	public ValidationMessages(File resourceFolder) {
+		this.resourceFolder = resourceFolder;
+	}
+
+	/**
+	 * @return the aggregated bundle of the locale, null for the default
+	 *         bundle.
+	 */
+	public static File getBundleFile(File resourceFolder, String locale) {
+		return new File(resourceFolder, BUNDLE_BASE_NAME + (locale != null ? "_" + locale : "")
+				+ BundleStrategy.PROPERTIES_EXTENSION);
+	}
+
+	/**
+	 * @return the message template of the constraint looking the key up in
+	 *         these bundles.
+	 */
+	public static String getTemplate(String key) {
+		return TEMPLATE_PREFIX + key + TEMPLATE_SUFFIX;
+	}
+
+	/**
+	 * @return the key of a message template of the form {key}, the message
+	 *         itself if it has no braces.
+	 */
+	public static String getKey(String message) {
+		String key = message.trim();
+		if (key.startsWith(TEMPLATE_PREFIX) && key.endsWith(TEMPLATE_SUFFIX))
+			key = key.substring(TEMPLATE_PREFIX.length(), key.length() - TEMPLATE_SUFFIX.length());
+		return key;
+	}
+
+	/**
+	 * Tells if the bundle key or message template is a constraint message
+	 * key.
+	 */
+	public static boolean isValidationKey(String key) {
+		return getKey(key).endsWith(VALIDATION_SUFFIX);
+	}
+
+	/**
+	 * Merges the messages of all description bundles into the aggregated
+	 * bundles. Only the constraint message keys are added, replaced or
+	 * removed, other entries of the aggregated bundles are left as they are.
+	 * The existing aggregated bundles of locales without description bundle
+	 * lose their constraint message keys. Bundles whose content does not
+	 * change are not written.
+	 */
+	public void rebuild() {
+		Map<String, Map<String, String>> messages = new TreeMap<String, Map<String, String>>();
+		collect(resourceFolder, messages);
+		addAggregatedLocales(messages);
+		for (Entry<String, Map<String, String>> entry : messages.entrySet()) {
+			String locale = entry.getKey().length() == 0 ? null : entry.getKey();
+			final Map<String, String> localeMessages = entry.getValue();
+			keys += localeMessages.size();
+			File bundleFile = getBundleFile(resourceFolder, locale);
+			if (localeMessages.isEmpty() && !bundleFile.exists())
+				continue;
+			boolean written = PropertiesFileWriter.update(bundleFile,
+					new PropertiesFileWriter.Update() {
+						@Override
+						public boolean apply(Properties properties) {
+							return merge(properties, localeMessages);
+						}
+					});
+			if (written)
+				bundlesWritten++;
+		}
+	}
+
+	/*
+	 * Replaces the constraint message keys of the bundle by the given
+	 * messages.
+	 */
+	private static boolean merge(Properties properties, Map<String, String> messages) {
+		boolean changed = false;
+		for (String key : properties.stringPropertyNames()) {
+			if (isValidationKey(key) && !messages.containsKey(key)) {
+				properties.remove(key);
+				changed = true;
+			}
+		}
+		for (Entry<String, String> message : messages.entrySet()) {
+			if (!message.getValue().equals(properties.getProperty(message.getKey()))) {
+				properties.setProperty(message.getKey(), message.getValue());
+				changed = true;
+			}
+		}
+		return changed;
+	}
+
+	/*
+	 * Locales of the existing aggregated bundles, so that their stale keys
+	 * are removed too.
+	 */
+	private void addAggregatedLocales(Map<String, Map<String, String>> messages) {
+		File[] children = resourceFolder.listFiles();
+		if (children == null)
+			return;
+		for (File child : children) {
+			Matcher matcher = BUNDLE_NAME_PATTERN.matcher(child.getName());
+			if (!child.isFile() || !matcher.matches() || !BUNDLE_BASE_NAME.equals(matcher.group(1)))
+				continue;
+			String locale = matcher.group(3) != null ? matcher.group(3) : "";
+			if (!messages.containsKey(locale))
+				messages.put(locale, new HashMap<String, String>());
+		}
+	}
+
+	/*
+	 * Messages by locale, the default locale being the empty string. Keys
+	 * without title nor text are left out.
+	 */
+	private void collect(File directory, Map<String, Map<String, String>> messages) {
+		File[] children = directory.listFiles();
+		if (children == null)
+			return;
+		for (File child : children) {
+			if (child.isDirectory()) {
+				collect(child, messages);
+				continue;
+			}
+			String name = child.getName();
+			Matcher matcher = BUNDLE_NAME_PATTERN.matcher(name);
+			if (!matcher.matches() || BUNDLE_BASE_NAME.equals(matcher.group(1))
+					|| BundleStrategy.DESCRIPTION_PROPERTIES.equals(name))
+				continue;
+			String locale = matcher.group(3) != null ? matcher.group(3) : "";
+			Map<String, String> localeMessages = messages.get(locale);
+			if (localeMessages == null) {
+				localeMessages = new HashMap<String, String>();
+				messages.put(locale, localeMessages);
+			}
+			Properties properties = BundleSession.load(child);
+			bundlesRead++;
+			for (String entry : properties.stringPropertyNames()) {
+				String key;
+				if (entry.endsWith(TITLE_SUFFIX)) {
+					key = entry.substring(0, entry.length() - TITLE_SUFFIX.length());
+				} else if (entry.endsWith(TEXT_SUFFIX)) {
+					key = entry.substring(0, entry.length() - TEXT_SUFFIX.length());
+				} else {
+					continue;
+				}
+				if (!isValidationKey(key))
+					continue;
+				String message = getMessage(properties.getProperty(key + TITLE_SUFFIX),
+						properties.getProperty(key + TEXT_SUFFIX));
+				if (message != null)
+					localeMessages.put(key, message);
+			}
+		}
+	}
+
+	/**
+	 * @return the text of a message, its title if it has no text, null if it
+	 *         has neither. An empty message would replace the default message
+	 *         of the constraint.
+	 */
+	public static String getMessage(String title, String text) {
+		if (StringUtils.isNotBlank(text))
+			return text;
+		return StringUtils.isNotBlank(title) ? title : null;
+	}
+
+	public int getBundlesRead() {
+		return bundlesRead;
+	}
+
+	public int getBundlesWritten() {
+		return bundlesWritten;
+	}
+
+	public int getKeys() {
+		return keys;
+	}
+}
@@ -0,0 +1,310 @@
+package org.adorsys.forge.plugins.display;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import org.adorsys.forge.plugins.display.AssociationGraph.EntityNode;
+import org.adorsys.forge.plugins.display.AssociationGraph.Kind;
+import org.adorsys.forge.plugins.display.AssociationGraph.Relationship;
+import org.adorsys.javaext.display.AssociationType;
+
+/**
+ * Looks at both sides of the relationships of an {@link AssociationGraph}:
+ * mappedBy attributes that do not point back at the owning field, two
+ * independent mappings of the same relationship, and cycles of relationships
+ * cascading persist or merge. Target entities given by a simple name that
+ * neither the package nor the imports of the owner resolve, and that several
+ * entities share, are reported as ambiguous instead of being checked.
+ *
+ * @author francis pouatcha
+ *
+ */
+public class AssociationAnalyzer {
+
+	public enum FindingType {
+		INCONSISTENT_BIDIRECTIONAL, MISSING_MAPPED_BY, CASCADE_CYCLE, AMBIGUOUS_TARGET
+	}
+
+	private static final String WILDCARD = "*";
+
+	private final Map<String, EntityNode> entities;
+	private final Map<String, List<EntityNode>> bySimpleName = new HashMap<String, List<EntityNode>>();
+	private final Set<Relationship> ambiguous = new LinkedHashSet<Relationship>();
+
+	public AssociationAnalyzer(Map<String, EntityNode> entities) {
+		this.entities = new TreeMap<String, EntityNode>(entities);
+		for (EntityNode entity : this.entities.values()) {
+			String simpleName = simpleName(entity.getQualifiedName());
+			List<EntityNode> candidates = bySimpleName.get(simpleName);
+			if (candidates == null) {
+				candidates = new ArrayList<EntityNode>();
+				bySimpleName.put(simpleName, candidates);
+			}
+			candidates.add(entity);
+		}
+	}
+
+	public List<Finding> analyze() {
+		List<Finding> findings = new ArrayList<Finding>();
+		Set<String> reportedPairs = new HashSet<String>();
+		for (EntityNode entity : entities.values()) {
+			for (Relationship relationship : entity.getRelationships()) {
+				if (relationship.getMappedBy() != null) {
+					checkMappedBy(entity, relationship, findings);
+				} else {
+					checkMissingMappedBy(entity, relationship, reportedPairs, findings);
+				}
+			}
+		}
+		findCascadeCycles(findings);
+		for (Relationship relationship : ambiguous) {
+			findings.add(new Finding(FindingType.AMBIGUOUS_TARGET, relationship + " references "
+					+ relationship.getTarget() + ", which is the simple name of several entities."));
+		}
+		return findings;
+	}
+
+	private void checkMappedBy(EntityNode entity, Relationship relationship, List<Finding> findings) {
+		EntityNode target = resolve(entity, relationship);
+		if (target == null)
+			return;
+		Relationship inverse = getRelationship(target, relationship.getMappedBy());
+		if (inverse != null && resolve(target, inverse) == null && ambiguous.contains(inverse))
+			return;// reported as ambiguous.
+		if (inverse == null) {
+			findings.add(new Finding(FindingType.INCONSISTENT_BIDIRECTIONAL, relationship
+					+ " is mapped by " + simpleName(target.getQualifiedName()) + "."
+					+ relationship.getMappedBy() + " which is not a relationship field."));
+		} else if (resolve(target, inverse) != entity) {
+			findings.add(new Finding(FindingType.INCONSISTENT_BIDIRECTIONAL, relationship
+					+ " is mapped by " + inverse + " which does not reference "
+					+ simpleName(entity.getQualifiedName()) + "."));
+		} else if (inverse.getKind() != relationship.getKind().inverse()) {
+			findings.add(new Finding(FindingType.INCONSISTENT_BIDIRECTIONAL, relationship
+					+ " (" + relationship.getKind() + ") is mapped by " + inverse + " ("
+					+ inverse.getKind() + ")."));
+		} else if (inverse.getMappedBy() != null) {
+			findings.add(new Finding(FindingType.INCONSISTENT_BIDIRECTIONAL, relationship
+					+ " and " + inverse + " are both mapped by the other side, none owns the relationship."));
+		}
+	}
+
+	private void checkMissingMappedBy(EntityNode entity, Relationship relationship,
+			Set<String> reportedPairs, List<Finding> findings) {
+		EntityNode target = resolve(entity, relationship);
+		if (target == null)
+			return;
+		if (relationship.getKind() == Kind.ONE_TO_MANY
+				&& AssociationType.COMPOSITION.equals(relationship.getAssociationType())
+				&& !isMappedBy(target, entity, relationship.getField())) {
+			findings.add(new Finding(FindingType.MISSING_MAPPED_BY, relationship
+					+ " is a composite one to many association without mappedBy."));
+			return;
+		}
+		if (isMappedBy(target, entity, relationship.getField()))
+			return;
+		Relationship inverse = getInverse(entity, relationship, target);
+		if (inverse == null || getInverse(target, inverse, entity) != relationship)
+			return;// none or ambiguous, several fields map one of the sides.
+		String pair = relationship.getOwner() + "." + relationship.getField() + "|"
+				+ inverse.getOwner() + "." + inverse.getField();
+		String reversePair = inverse.getOwner() + "." + inverse.getField() + "|"
+				+ relationship.getOwner() + "." + relationship.getField();
+		if (reportedPairs.contains(reversePair) || !reportedPairs.add(pair))
+			return;
+		if (relationship.getKind() == Kind.ONE_TO_MANY) {
+			findings.add(new Finding(FindingType.MISSING_MAPPED_BY, relationship
+					+ " should be mapped by " + inverse + " (mappedBy=\"" + inverse.getField() + "\")."));
+		} else if (inverse.getKind() == Kind.ONE_TO_MANY) {
+			findings.add(new Finding(FindingType.MISSING_MAPPED_BY, inverse
+					+ " should be mapped by " + relationship + " (mappedBy=\"" + relationship.getField() + "\")."));
+		} else {
+			findings.add(new Finding(FindingType.MISSING_MAPPED_BY, relationship + " and " + inverse
+					+ " map the same relationship twice, one side needs a mappedBy."));
+		}
+	}
+
+	/*
+	 * The only relationship of the target without mappedBy that could be the
+	 * other side of the given relationship, null if there is none or several.
+	 */
+	private Relationship getInverse(EntityNode entity, Relationship relationship, EntityNode target) {
+		Relationship inverse = null;
+		for (Relationship candidate : target.getRelationships()) {
+			if (candidate == relationship || candidate.getMappedBy() != null
+					|| candidate.getKind() != relationship.getKind().inverse()
+					|| resolve(target, candidate) != entity
+					|| isMappedBy(entity, target, candidate.getField()))
+				continue;
+			if (inverse != null)
+				return null;
+			inverse = candidate;
+		}
+		return inverse;
+	}
+
+	/*
+	 * Tells if a relationship of the entity is mapped by the given field of
+	 * the other entity.
+	 */
+	private boolean isMappedBy(EntityNode entity, EntityNode other, String field) {
+		for (Relationship relationship : entity.getRelationships()) {
+			if (field.equals(relationship.getMappedBy()) && resolve(entity, relationship) == other)
+				return true;
+		}
+		return false;
+	}
+
+	/*
+	 * Strongly connected components of the relationships cascading persist.
+	 */
+	private void findCascadeCycles(List<Finding> findings) {
+		Tarjan tarjan = new Tarjan();
+		for (EntityNode entity : entities.values()) {
+			if (!tarjan.index.containsKey(entity))
+				tarjan.connect(entity);
+		}
+		for (Set<EntityNode> component : tarjan.components) {
+			StringBuilder cycle = new StringBuilder();
+			for (EntityNode entity : component) {
+				for (Relationship relationship : entity.getRelationships()) {
+					if (!relationship.cascadesPersist() || !component.contains(resolve(entity, relationship)))
+						continue;
+					if (cycle.length() > 0)
+						cycle.append(", ");
+					cycle.append(relationship).append(" -> ").append(simpleName(relationship.getTarget()));
+				}
+			}
+			if (cycle.length() > 0)
+				findings.add(new Finding(FindingType.CASCADE_CYCLE, "Cascading relationships form a cycle: " + cycle + "."));
+		}
+	}
+
+	private Collection<EntityNode> getCascadeTargets(EntityNode entity) {
+		List<EntityNode> targets = new ArrayList<EntityNode>();
+		for (Relationship relationship : entity.getRelationships()) {
+			if (!relationship.cascadesPersist())
+				continue;
+			EntityNode target = resolve(entity, relationship);
+			if (target != null)
+				targets.add(target);
+		}
+		return targets;
+	}
+
+	/*
+	 * The target entity of a relationship. Simple names are looked up as the
+	 * compiler does: single type imports, the package of the owner, then
+	 * wildcard imports. Otherwise the only entity with that simple name is
+	 * taken; if there are several, the relationship is ambiguous.
+	 */
+	private EntityNode resolve(EntityNode owner, Relationship relationship) {
+		String target = relationship.getTarget();
+		if (target == null)
+			return null;
+		if (target.indexOf('.') >= 0)
+			return entities.get(target);
+		for (String anImport : owner.getImports()) {
+			if (anImport.endsWith("." + target))
+				return entities.get(anImport);
+		}
+		EntityNode samePackage = entities.get(owner.getPackageName() + "." + target);
+		if (samePackage != null)
+			return samePackage;
+		for (String anImport : owner.getImports()) {
+			if (!anImport.endsWith(WILDCARD))
+				continue;
+			EntityNode imported = entities.get(anImport.substring(0, anImport.length() - WILDCARD.length()) + target);
+			if (imported != null)
+				return imported;
+		}
+		List<EntityNode> candidates = bySimpleName.get(target);
+		if (candidates == null)
+			return null;
+		if (candidates.size() > 1) {
+			ambiguous.add(relationship);
+			return null;
+		}
+		return candidates.get(0);
+	}
+
+	private static Relationship getRelationship(EntityNode entity, String field) {
+		for (Relationship relationship : entity.getRelationships()) {
+			if (relationship.getField().equals(field))
+				return relationship;
+		}
+		return null;
+	}
+
+	private static String simpleName(String qualifiedName) {
+		return qualifiedName.substring(qualifiedName.lastIndexOf('.') + 1);
+	}
+
+	private class Tarjan {
+		private final Map<EntityNode, Integer> index = new HashMap<EntityNode, Integer>();
+		private final Map<EntityNode, Integer> lowLink = new HashMap<EntityNode, Integer>();
+		private final LinkedList<EntityNode> stack = new LinkedList<EntityNode>();
+		private final Set<EntityNode> onStack = new HashSet<EntityNode>();
+		private final List<Set<EntityNode>> components = new ArrayList<Set<EntityNode>>();
+
+		private void connect(EntityNode entity) {
+			index.put(entity, index.size());
+			lowLink.put(entity, index.get(entity));
+			stack.push(entity);
+			onStack.add(entity);
+			boolean selfReference = false;
+			for (EntityNode target : getCascadeTargets(entity)) {
+				if (target == entity)
+					selfReference = true;
+				if (!index.containsKey(target)) {
+					connect(target);
+					lowLink.put(entity, Math.min(lowLink.get(entity), lowLink.get(target)));
+				} else if (onStack.contains(target)) {
+					lowLink.put(entity, Math.min(lowLink.get(entity), index.get(target)));
+				}
+			}
+			if (!lowLink.get(entity).equals(index.get(entity)))
+				return;
+			Set<EntityNode> component = new LinkedHashSet<EntityNode>();
+			EntityNode member;
+			do {
+				member = stack.pop();
+				onStack.remove(member);
+				component.add(member);
+			} while (member != entity);
+			if (component.size() > 1 || selfReference)
+				components.add(component);
+		}
+	}
+
+	public static class Finding {
+		private final FindingType type;
+		private final String message;
+
+		Finding(FindingType type, String message) {
+			this.type = type;
+			this.message = message;
+		}
+
+		public FindingType getType() {
+			return type;
+		}
+
+		public String getMessage() {
+			return message;
+		}
+
+		@Override
+		public String toString() {
+			return type + ": " + message;
+		}
+	}
+}
@@ -0,0 +1,324 @@
+package org.adorsys.forge.plugins.display;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import javax.enterprise.event.Observes;
+import javax.inject.Singleton;
+import javax.persistence.CascadeType;
+import javax.persistence.Entity;
+import javax.persistence.ManyToMany;
+import javax.persistence.ManyToOne;
+import javax.persistence.OneToMany;
+import javax.persistence.OneToOne;
+
+import org.adorsys.forge.plugins.utils.JavaSourceScanner;
+import org.adorsys.forge.plugins.utils.Utils;
+import org.adorsys.javaext.display.Association;
+import org.adorsys.javaext.display.AssociationType;
+import org.apache.commons.lang3.StringUtils;
+import org.jboss.forge.parser.java.Annotation;
+import org.jboss.forge.parser.java.Field;
+import org.jboss.forge.parser.java.Import;
+import org.jboss.forge.parser.java.JavaClass;
+import org.jboss.forge.parser.java.JavaSource;
+import org.jboss.forge.project.Project;
+import org.jboss.forge.project.facets.JavaSourceFacet;
+import org.jboss.forge.resources.java.JavaResource;
+import org.jboss.forge.shell.events.PickupResource;
+
+/**
+ * The entities of the project and their relationships. The graph is kept
+ * between commands: on each request only new and modified source files are
+ * parsed, in parallel, and entities of deleted files are dropped.
+ *
+ * @author francis pouatcha
+ *
+ */
+@Singleton
+public class AssociationGraph {
+
+	public enum Kind {
+		ONE_TO_ONE, ONE_TO_MANY, MANY_TO_ONE, MANY_TO_MANY;
+
+		/**
+		 * @return the kind of the other side of a bidirectional relationship.
+		 */
+		public Kind inverse() {
+			switch (this) {
+			case ONE_TO_MANY:
+				return MANY_TO_ONE;
+			case MANY_TO_ONE:
+				return ONE_TO_MANY;
+			default:
+				return this;
+			}
+		}
+	}
+
+	private static final Pattern TYPE_ARGUMENT = Pattern.compile("<\\s*(?:[\\w.]+\\s*,\\s*)?([\\w.]+)\\s*>");
+	private static final String CLASS_LITERAL_SUFFIX = ".class";
+
+	/*
+	 * Parsed source files by absolute path. Sources that are not entities are
+	 * kept with a null entity, so that they are not parsed again.
+	 */
+	private final Map<String, Node> nodes = new HashMap<String, Node>();
+
+	/**
+	 * Brings the graph up to date with the source folder of the project.
+	 *
+	 * @return the entities by qualified name.
+	 */
+	public synchronized Map<String, EntityNode> getEntities(Project project) {
+		File sourceFolder = project.getFacet(JavaSourceFacet.class)
+				.getSourceFolder().getUnderlyingResourceObject();
+		List<File> files = JavaSourceScanner.listJavaFiles(sourceFolder, null);
+		Set<String> paths = new HashSet<String>();
+		List<File> stale = new ArrayList<File>();
+		for (File file : files) {
+			String path = file.getAbsolutePath();
+			paths.add(path);
+			Node node = nodes.get(path);
+			if (node == null || node.lastModified != file.lastModified())
+				stale.add(file);
+		}
+		nodes.keySet().retainAll(paths);
+
+		final Map<String, Node> parsed = Collections.synchronizedMap(new HashMap<String, Node>());
+		JavaSourceScanner.scan(stale, new JavaSourceScanner.Visitor() {
+			@Override
+			public void visit(File file, JavaSource<?> javaSource) {
+				parsed.put(file.getAbsolutePath(), new Node(file.lastModified(), toEntity(javaSource)));
+			}
+		});
+		nodes.putAll(parsed);
+
+		Map<String, EntityNode> entities = new HashMap<String, EntityNode>();
+		for (Node node : nodes.values()) {
+			if (node.entity != null)
+				entities.put(node.entity.getQualifiedName(), node.entity);
+		}
+		return entities;
+	}
+
+	/**
+	 * @return the number of source files known to the graph.
+	 */
+	public synchronized int size() {
+		return nodes.size();
+	}
+
+	public synchronized void clear() {
+		nodes.clear();
+	}
+
+	public void onPickup(@Observes PickupResource event) {
+		JavaResource javaResource = Utils.getJavaResource(event.getResource());
+		if (javaResource == null)
+			return;
+		synchronized (this) {
+			nodes.remove(javaResource.getUnderlyingResourceObject()
+					.getAbsolutePath());
+		}
+	}
+
+	private static EntityNode toEntity(JavaSource<?> javaSource) {
+		if (!javaSource.isClass())
+			return null;
+		JavaClass javaClass = (JavaClass) javaSource;
+		if (!javaClass.hasAnnotation(Entity.class))
+			return null;
+		List<Relationship> relationships = new ArrayList<Relationship>();
+		for (Field<JavaClass> field : javaClass.getFields()) {
+			Relationship relationship = toRelationship(javaClass, field);
+			if (relationship != null)
+				relationships.add(relationship);
+		}
+		List<String> imports = new ArrayList<String>();
+		for (Import anImport : javaClass.getImports()) {
+			if (anImport.isStatic())
+				continue;
+			imports.add(anImport.isWildcard() ? anImport.getQualifiedName() + ".*" : anImport.getQualifiedName());
+		}
+		return new EntityNode(javaClass.getQualifiedName(), javaClass.getPackage(),
+				Collections.unmodifiableList(imports), Collections.unmodifiableList(relationships));
+	}
+
+	private static Relationship toRelationship(JavaClass javaClass, Field<JavaClass> field) {
+		Kind kind;
+		Annotation<JavaClass> annotation;
+		if ((annotation = field.getAnnotation(OneToOne.class)) != null) {
+			kind = Kind.ONE_TO_ONE;
+		} else if ((annotation = field.getAnnotation(OneToMany.class)) != null) {
+			kind = Kind.ONE_TO_MANY;
+		} else if ((annotation = field.getAnnotation(ManyToOne.class)) != null) {
+			kind = Kind.MANY_TO_ONE;
+		} else if ((annotation = field.getAnnotation(ManyToMany.class)) != null) {
+			kind = Kind.MANY_TO_MANY;
+		} else {
+			return null;
+		}
+		String mappedBy = null;
+		Set<CascadeType> cascade = new HashSet<CascadeType>();
+		String target = null;
+		if (annotation.isNormal()) {
+			mappedBy = StringUtils.trimToNull(annotation.getStringValue("mappedBy"));
+			CascadeType[] cascadeTypes = annotation.getEnumArrayValue(CascadeType.class, "cascade");
+			if (cascadeTypes != null)
+				Collections.addAll(cascade, cascadeTypes);
+			target = toTypeName(annotation.getLiteralValue("targetEntity"));
+		}
+		if (target == null) {
+			if (kind == Kind.ONE_TO_MANY || kind == Kind.MANY_TO_MANY) {
+				/*
+				 * The element type of the collection, as written in the source.
+				 */
+				Matcher matcher = TYPE_ARGUMENT.matcher(field.toString());
+				target = matcher.find() ? matcher.group(1) : null;
+			} else {
+				target = field.getQualifiedType();
+			}
+		}
+		AssociationType associationType = null;
+		Annotation<JavaClass> association = field.getAnnotation(Association.class);
+		if (association != null && association.isNormal()) {
+			AssociationType[] associationTypes = association.getEnumArrayValue(AssociationType.class, "associationType");
+			if (associationTypes != null && associationTypes.length > 0)
+				associationType = associationTypes[0];
+		}
+		return new Relationship(javaClass.getQualifiedName(), field.getName(), kind, target,
+				mappedBy, Collections.unmodifiableSet(cascade), associationType);
+	}
+
+	private static String toTypeName(String classLiteral) {
+		if (StringUtils.isBlank(classLiteral))
+			return null;
+		String typeName = classLiteral.trim();
+		if (typeName.endsWith(CLASS_LITERAL_SUFFIX))
+			typeName = typeName.substring(0, typeName.length() - CLASS_LITERAL_SUFFIX.length());
+		return typeName;
+	}
+
+	private static class Node {
+		private final long lastModified;
+		private final EntityNode entity;
+
+		Node(long lastModified, EntityNode entity) {
+			this.lastModified = lastModified;
+			this.entity = entity;
+		}
+	}
+
+	public static class EntityNode {
+		private final String qualifiedName;
+		private final String packageName;
+		private final List<String> imports;
+		private final List<Relationship> relationships;
+
+		EntityNode(String qualifiedName, String packageName, List<String> imports,
+				List<Relationship> relationships) {
+			this.qualifiedName = qualifiedName;
+			this.packageName = packageName;
+			this.imports = imports;
+			this.relationships = relationships;
+		}
+
+		public String getQualifiedName() {
+			return qualifiedName;
+		}
+
+		public String getPackageName() {
+			return packageName;
+		}
+
+		/**
+		 * @return the qualified names of the type imports, wildcard imports
+		 *         ending with '*'.
+		 */
+		public List<String> getImports() {
+			return imports;
+		}
+
+		public List<Relationship> getRelationships() {
+			return relationships;
+		}
+	}
+
+	/**
+	 * A relationship field. The target is the type name as written in the
+	 * source, simple or qualified.
+	 */
+	public static class Relationship {
+		private final String owner;
+		private final String field;
+		private final Kind kind;
+		private final String target;
+		private final String mappedBy;
+		private final Set<CascadeType> cascade;
+		private final AssociationType associationType;
+
+		Relationship(String owner, String field, Kind kind, String target, String mappedBy,
+				Set<CascadeType> cascade, AssociationType associationType) {
+			this.owner = owner;
+			this.field = field;
+			this.kind = kind;
+			this.target = target;
+			this.mappedBy = mappedBy;
+			this.cascade = cascade;
+			this.associationType = associationType;
+		}
+
+		public String getOwner() {
+			return owner;
+		}
+
+		public String getField() {
+			return field;
+		}
+
+		public Kind getKind() {
+			return kind;
+		}
+
+		public String getTarget() {
+			return target;
+		}
+
+		public String getMappedBy() {
+			return mappedBy;
+		}
+
+		public Set<CascadeType> getCascade() {
+			return cascade;
+		}
+
+		/**
+		 * @return the type of the @Association annotation or null.
+		 */
+		public AssociationType getAssociationType() {
+			return associationType;
+		}
+
+		/**
+		 * @return true if persisting the owner is cascaded to the target.
+		 */
+		public boolean cascadesPersist() {
+			return cascade.contains(CascadeType.ALL) || cascade.contains(CascadeType.PERSIST)
+					|| cascade.contains(CascadeType.MERGE);
+		}
+
+		@Override
+		public String toString() {
+			return owner.substring(owner.lastIndexOf('.') + 1) + "." + field;
+		}
+	}
+}
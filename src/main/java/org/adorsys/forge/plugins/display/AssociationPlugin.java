@@ -2,6 +2,8 @@ package org.adorsys.forge.plugins.display;
 
 import java.io.FileNotFoundException;
 import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
 
 import javax.enterprise.event.Event;
 import javax.inject.Inject;
@@ -14,6 +16,11 @@ import javax.persistence.OneToOne;
 import org.adorsys.forge.plugins.description.DescriptionFacet;
 import org.adorsys.forge.plugins.description.DescriptionPluginUtils;
 import org.adorsys.forge.plugins.description.JavaClassOrInterface;
+import org.adorsys.forge.plugins.utils.JavaSourceCache;
+import org.adorsys.forge.plugins.utils.ProjectSymbolIndex;
+import org.adorsys.forge.plugins.utils.ProjectSymbolIndex.Kind;
+import org.adorsys.forge.plugins.utils.SaveService;
+import org.adorsys.forge.plugins.utils.Timed;
 import org.adorsys.javaext.display.Association;
 import org.adorsys.javaext.display.AssociationType;
 import org.adorsys.javaext.display.SelectionMode;
@@ -23,7 +30,6 @@ import org.jboss.forge.parser.java.Field;
 import org.jboss.forge.parser.java.JavaClass;
 import org.jboss.forge.parser.java.JavaSource;
 import org.jboss.forge.project.Project;
-import org.jboss.forge.project.facets.JavaSourceFacet;
 import org.jboss.forge.project.facets.events.InstallFacets;
 import org.jboss.forge.resources.Resource;
 import org.jboss.forge.resources.java.JavaResource;
@@ -31,7 +37,6 @@ import org.jboss.forge.shell.PromptType;
 import org.jboss.forge.shell.Shell;
 import org.jboss.forge.shell.ShellMessages;
 import org.jboss.forge.shell.completer.PropertyCompleter;
-import org.jboss.forge.shell.events.PickupResource;
 import org.jboss.forge.shell.plugins.Alias;
 import org.jboss.forge.shell.plugins.Command;
 import org.jboss.forge.shell.plugins.Help;
@@ -41,7 +46,6 @@ import org.jboss.forge.shell.plugins.Plugin;
 import org.jboss.forge.shell.plugins.RequiresFacet;
 import org.jboss.forge.shell.plugins.RequiresProject;
 import org.jboss.forge.shell.plugins.SetupCommand;
-import org.jboss.forge.spec.javaee.PersistenceFacet;
 
 /**
  * Add display hint to entities. This is generally the case when an entity
@@ -63,6 +67,7 @@ import org.jboss.forge.spec.javaee.PersistenceFacet;
 @RequiresProject
 @Help("This plugin will help you add display hints on association fields.")
 @RequiresFacet({ DescriptionFacet.class })
+@Timed
 public class AssociationPlugin implements Plugin {
 
 	@Inject
@@ -72,11 +77,20 @@ public class AssociationPlugin implements Plugin {
 	private Event<InstallFacets> request;
 
 	@Inject
-	private Event<PickupResource> pickup;
+	private SaveService saveService;
+
+	@Inject
+	private JavaSourceCache javaSourceCache;
 
 	@Inject
 	private Shell shell;
 
+	@Inject
+	private ProjectSymbolIndex symbolIndex;
+
+	@Inject
+	private AssociationGraph associationGraph;
+
 	@SetupCommand
 	public void setup(final PipeOut out) {
 		if (!project.hasFacet(DescriptionFacet.class)) {
@@ -99,7 +113,7 @@ public class AssociationPlugin implements Plugin {
 		final Resource<?> currentResource = shell.getCurrentResource();
 
 		JavaClassOrInterface javaClassOrInterface = DescriptionPluginUtils
-				.inspectResource(currentResource);
+				.inspectResource(currentResource, javaSourceCache);
 
 		if (!javaClassOrInterface.isClass()) {
 			throw new IllegalStateException(
@@ -307,7 +321,7 @@ public class AssociationPlugin implements Plugin {
 		final Resource<?> currentResource = shell.getCurrentResource();
 
 		JavaClassOrInterface javaClassOrInterface = DescriptionPluginUtils
-				.inspectResource(currentResource);
+				.inspectResource(currentResource, javaSourceCache);
 
 		if (!javaClassOrInterface.isClass()) {
 			throw new IllegalStateException(
@@ -342,7 +356,7 @@ public class AssociationPlugin implements Plugin {
 		final Resource<?> currentResource = shell.getCurrentResource();
 
 		JavaClassOrInterface javaClassOrInterface = DescriptionPluginUtils
-				.inspectResource(currentResource);
+				.inspectResource(currentResource, javaSourceCache);
 
 		if (!javaClassOrInterface.isClass()) {
 			throw new IllegalStateException(
@@ -383,18 +397,31 @@ public class AssociationPlugin implements Plugin {
 		saveAndFire(javaClass);
 	}
 
-	private void saveAndFire(JavaSource<?> source) {
-		final JavaSourceFacet javaSourceFacet = project
-				.getFacet(JavaSourceFacet.class);
-		try {
-			javaSourceFacet.saveJavaSource(source);
-			pickup.fire(new PickupResource(javaSourceFacet
-					.getJavaResource(source)));
-		} catch (FileNotFoundException e) {
-			throw new IllegalStateException("The current resource '"
-					+ source.getName() + "' was deleted from the file system.");
+	@Command(value = "analyze", help = "Checks the relationships of all entities for inconsistent bidirectional mappings, missing mappedBy and cascade cycles.")
+	public void analyze(
+			@Option(name = "rebuild", flagOnly = true, required = false, help = "Parses all sources again instead of only the modified ones.") boolean rebuild,
+			final PipeOut out) {
+		long start = System.currentTimeMillis();
+		if (rebuild)
+			associationGraph.clear();
+		Map<String, AssociationGraph.EntityNode> entities = associationGraph.getEntities(project);
+		List<AssociationAnalyzer.Finding> findings = new AssociationAnalyzer(entities).analyze();
+		long duration = System.currentTimeMillis() - start;
+
+		for (AssociationAnalyzer.Finding finding : findings) {
+			ShellMessages.warn(out, finding.toString());
+		}
+		String summary = "Analyzed " + entities.size() + " entities of " + associationGraph.size()
+				+ " sources in " + duration + " ms";
+		if (findings.isEmpty()) {
+			ShellMessages.success(out, summary + ", no issue found.");
+		} else {
+			ShellMessages.info(out, summary + ", " + findings.size() + " issues found.");
 		}
+	}
 
+	private void saveAndFire(JavaSource<?> source) {
+		saveService.saveAndFire(project, source);
 	}
 
 	private Annotation<JavaClass> readJpaAnnotation(Field<JavaClass> field) {
@@ -414,14 +441,11 @@ public class AssociationPlugin implements Plugin {
 			throws FileNotFoundException {
 		JavaClass result = null;
 
-		PersistenceFacet scaffold = project.getFacet(PersistenceFacet.class);
-		JavaSourceFacet java = project.getFacet(JavaSourceFacet.class);
-
 		if (entity != null) {
-			result = getJavaClassFrom(java.getJavaResource(entity));
-			if (result == null) {
-				result = getJavaClassFrom(java.getJavaResource(scaffold
-						.getEntityPackage() + "." + entity));
+			JavaResource javaResource = symbolIndex.findResource(project, entity,
+					Kind.CLASS);
+			if (javaResource != null) {
+				result = getJavaClassFrom(javaResource);
 			}
 		}
 
@@ -435,7 +459,7 @@ public class AssociationPlugin implements Plugin {
 
 	private JavaClass getJavaClassFrom(final Resource<?> resource)
 			throws FileNotFoundException {
-		JavaSource<?> source = ((JavaResource) resource).getJavaSource();
+		JavaSource<?> source = DescriptionPluginUtils.readCurrentResource(resource, javaSourceCache);
 		if (!source.isClass()) {
 			throw new IllegalStateException(
 					"Current resource is not a JavaClass!");
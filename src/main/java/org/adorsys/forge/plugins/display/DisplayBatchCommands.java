@@ -0,0 +1,29 @@
+package org.adorsys.forge.plugins.display;
+
+import org.adorsys.forge.plugins.description.BatchCommands;
+import org.adorsys.forge.plugins.description.DescriptionBatch.Operation;
+import org.jboss.forge.parser.java.JavaClass;
+
+/**
+ * The display commands of a batch file.
+ *
+ * @author francis pouatcha
+ *
+ */
+public class DisplayBatchCommands implements BatchCommands {
+
+	private static final String ADD_TO_STRING_FIELD = "add-toString-field";
+	private static final String ADD_LIST_FIELD = "add-list-field";
+
+	@Override
+	public boolean supports(String command) {
+		return ADD_TO_STRING_FIELD.equals(command) || ADD_LIST_FIELD.equals(command);
+	}
+
+	@Override
+	public boolean apply(JavaClass javaClass, Operation operation) {
+		if (ADD_TO_STRING_FIELD.equals(operation.getCommand()))
+			return DisplayEditor.addToStringField(javaClass, operation.getMember());
+		return DisplayEditor.addListField(javaClass, operation.getMember());
+	}
+}
@@ -0,0 +1,74 @@
+package org.adorsys.forge.plugins.display;
+
+import org.adorsys.javaext.display.ToStringField;
+import org.adorsys.javaext.list.ListField;
+import org.apache.commons.lang3.StringUtils;
+import org.jboss.forge.parser.java.Annotation;
+import org.jboss.forge.parser.java.JavaClass;
+
+/**
+ * Applies the display commands to a parsed class without saving it.
+ *
+ * @author francis pouatcha
+ *
+ */
+public class DisplayEditor {
+
+	/**
+	 * Adds a field to the fields of the {@link ToStringField} annotation.
+	 *
+	 * @return true if the class was modified and has to be saved, false if
+	 *         the field already is one of the fields.
+	 */
+	public static boolean addToStringField(JavaClass javaClass, String fieldName) {
+		Annotation<JavaClass> tostringFieldAnnotation = javaClass.getAnnotation(ToStringField.class);
+		if (tostringFieldAnnotation == null)
+			tostringFieldAnnotation = javaClass.addAnnotation(ToStringField.class);
+		return appendField(tostringFieldAnnotation, fieldName);
+	}
+
+	/**
+	 * Adds a field to the fields of the {@link ListField} annotation.
+	 *
+	 * @return true if the class was modified and has to be saved, false if
+	 *         the field already is one of the fields.
+	 */
+	public static boolean addListField(JavaClass javaClass, String fieldName) {
+		Annotation<JavaClass> listFieldAnnotation = javaClass.getAnnotation(ListField.class);
+		if (listFieldAnnotation == null)
+			listFieldAnnotation = javaClass.addAnnotation(ListField.class);
+		return appendField(listFieldAnnotation, fieldName);
+	}
+
+	private static boolean appendField(Annotation<JavaClass> annotation, String fieldName) {
+		String fieldList= annotation.getLiteralValue();
+		String literanFieldName = "\""+fieldName+"\"";
+		if (containsField(fieldList, literanFieldName))
+			return false;
+		if(StringUtils.isBlank(fieldList)){
+			annotation.setLiteralValue(literanFieldName);
+		} else if(!fieldList.startsWith("{")){
+			fieldList = "{"+fieldList+","+literanFieldName+"}";
+			annotation.setLiteralValue(fieldList);
+		} else {
+			fieldList=StringUtils.substringBeforeLast(fieldList, "}");
+			fieldList = fieldList+","+literanFieldName+"}";
+			annotation.setLiteralValue(fieldList);
+		}
+		return true;
+	}
+
+	/*
+	 * The literal is a single string or an array of strings.
+	 */
+	private static boolean containsField(String fieldList, String literalFieldName) {
+		if (StringUtils.isBlank(fieldList))
+			return false;
+		String fields = StringUtils.removeEnd(StringUtils.removeStart(fieldList.trim(), "{"), "}");
+		for (String field : StringUtils.split(fields, ',')) {
+			if (field.trim().equals(literalFieldName))
+				return true;
+		}
+		return false;
+	}
+}
@@ -1,6 +1,5 @@
 package org.adorsys.forge.plugins.display;
 
-import java.io.FileNotFoundException;
 
 import javax.enterprise.event.Event;
 import javax.inject.Inject;
@@ -8,19 +7,16 @@ import javax.inject.Inject;
 import org.adorsys.forge.plugins.description.DescriptionFacet;
 import org.adorsys.forge.plugins.description.DescriptionPluginUtils;
 import org.adorsys.forge.plugins.description.JavaClassOrInterface;
-import org.adorsys.javaext.display.ToStringField;
-import org.adorsys.javaext.list.ListField;
-import org.apache.commons.lang3.StringUtils;
-import org.jboss.forge.parser.java.Annotation;
+import org.adorsys.forge.plugins.utils.JavaSourceCache;
+import org.adorsys.forge.plugins.utils.SaveService;
+import org.adorsys.forge.plugins.utils.Timed;
 import org.jboss.forge.parser.java.JavaClass;
 import org.jboss.forge.parser.java.JavaSource;
 import org.jboss.forge.project.Project;
-import org.jboss.forge.project.facets.JavaSourceFacet;
 import org.jboss.forge.project.facets.events.InstallFacets;
 import org.jboss.forge.resources.Resource;
 import org.jboss.forge.shell.Shell;
 import org.jboss.forge.shell.ShellMessages;
-import org.jboss.forge.shell.events.PickupResource;
 import org.jboss.forge.shell.plugins.Alias;
 import org.jboss.forge.shell.plugins.Command;
 import org.jboss.forge.shell.plugins.Help;
@@ -41,6 +37,7 @@ import org.jboss.forge.shell.plugins.SetupCommand;
 @RequiresProject
 @Help("This plugin will help you add display hints on entity fields.")
 @RequiresFacet({ DescriptionFacet.class })
+@Timed
 public class DisplayPlugin implements Plugin {
 
 	@Inject
@@ -50,7 +47,10 @@ public class DisplayPlugin implements Plugin {
 	private Event<InstallFacets> request;
 
 	@Inject
-	private Event<PickupResource> pickup;
+	private SaveService saveService;
+
+	@Inject
+	private JavaSourceCache javaSourceCache;
 
 	@Inject
 	private Shell shell;
@@ -74,7 +74,7 @@ public class DisplayPlugin implements Plugin {
 			final PipeOut out) {
 		final Resource<?> currentResource = shell.getCurrentResource();
 		JavaClassOrInterface javaClassOrInterface = DescriptionPluginUtils
-				.inspectResource(currentResource);
+				.inspectResource(currentResource, javaSourceCache);
 
 		if (!javaClassOrInterface.isClass()) {
 			throw new IllegalStateException(
@@ -82,26 +82,8 @@ public class DisplayPlugin implements Plugin {
 		}
 
 		JavaClass javaClass = javaClassOrInterface.getJavaClass();
-
-		Annotation<JavaClass> tostringFieldAnnotation;
-		if(javaClass.hasAnnotation(ToStringField.class)){
-			tostringFieldAnnotation = javaClass.getAnnotation(ToStringField.class);
-		}else {
-			tostringFieldAnnotation = javaClass.addAnnotation(ToStringField.class);
-		}
-		String fieldList= tostringFieldAnnotation.getLiteralValue();
-		String literanFieldName = "\""+fieldName+"\"";
-		if(StringUtils.isBlank(fieldList)){
-			tostringFieldAnnotation.setLiteralValue(literanFieldName);
-		} else if(!fieldList.startsWith("{")){
-			fieldList = "{"+fieldList+","+literanFieldName+"}";
-			tostringFieldAnnotation.setLiteralValue(fieldList);
-		} else {
-			fieldList=StringUtils.substringBeforeLast(fieldList, "}");
-			fieldList = fieldList+","+literanFieldName+"}";
-			tostringFieldAnnotation.setLiteralValue(fieldList);
-		}
-		saveAndFire(javaClass);
+		if (DisplayEditor.addToStringField(javaClass, fieldName))
+			saveAndFire(javaClass);
 	}
 	
 	@Command(value = "add-list-field", help = "Add a field to the list of fields that will displayed.")
@@ -110,7 +92,7 @@ public class DisplayPlugin implements Plugin {
 			final PipeOut out) {
 		final Resource<?> currentResource = shell.getCurrentResource();
 		JavaClassOrInterface javaClassOrInterface = DescriptionPluginUtils
-				.inspectResource(currentResource);
+				.inspectResource(currentResource, javaSourceCache);
 
 		if (!javaClassOrInterface.isClass()) {
 			throw new IllegalStateException(
@@ -118,38 +100,11 @@ public class DisplayPlugin implements Plugin {
 		}
 
 		JavaClass javaClass = javaClassOrInterface.getJavaClass();
-
-		Annotation<JavaClass> listFieldAnnotation;
-		if(javaClass.hasAnnotation(ListField.class)){
-			listFieldAnnotation = javaClass.getAnnotation(ListField.class);
-		}else {
-			listFieldAnnotation = javaClass.addAnnotation(ListField.class);
-		}
-		String fieldList= listFieldAnnotation.getLiteralValue();
-		String literanFieldName = "\""+fieldName+"\"";
-		if(StringUtils.isBlank(fieldList)){
-			listFieldAnnotation.setLiteralValue(literanFieldName);
-		} else if(!fieldList.startsWith("{")){
-			fieldList = "{"+fieldList+","+literanFieldName+"}";
-			listFieldAnnotation.setLiteralValue(fieldList);
-		} else {
-			fieldList=StringUtils.substringBeforeLast(fieldList, "}");
-			fieldList = fieldList+","+literanFieldName+"}";
-			listFieldAnnotation.setLiteralValue(fieldList);
-		}
-		saveAndFire(javaClass);
+		if (DisplayEditor.addListField(javaClass, fieldName))
+			saveAndFire(javaClass);
 	}
 	
-	private void saveAndFire(JavaSource<?> source){
-		final JavaSourceFacet javaSourceFacet = project.getFacet(JavaSourceFacet.class);
-		try {
-			javaSourceFacet.saveJavaSource(source);
-			pickup.fire(new PickupResource(javaSourceFacet.getJavaResource(source)));
-		} catch (FileNotFoundException e) {
-			throw new IllegalStateException(
-					"The current resource '"
-							+ source.getName() + "' was deleted from the file system.");
-		}
-
+	private void saveAndFire(JavaSource<?> source) {
+		saveService.saveAndFire(project, source);
 	}
 }
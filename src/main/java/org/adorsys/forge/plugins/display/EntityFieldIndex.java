@@ -0,0 +1,179 @@
+package org.adorsys.forge.plugins.display;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.enterprise.event.Observes;
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import javax.persistence.Id;
+import javax.persistence.ManyToOne;
+import javax.persistence.OneToOne;
+import javax.persistence.Version;
+
+import org.adorsys.forge.plugins.description.DescriptionPluginUtils;
+import org.adorsys.forge.plugins.utils.JavaSourceCache;
+import org.adorsys.forge.plugins.utils.Utils;
+import org.jboss.forge.parser.java.Field;
+import org.jboss.forge.parser.java.JavaClass;
+import org.jboss.forge.parser.java.JavaSource;
+import org.jboss.forge.project.Project;
+import org.jboss.forge.project.facets.JavaSourceFacet;
+import org.jboss.forge.resources.Resource;
+import org.jboss.forge.resources.java.JavaResource;
+import org.jboss.forge.shell.events.PickupResource;
+
+/**
+ * Index of the non id and non version fields of each entity, shared by the
+ * property completers. An entity is parsed once and indexed until its
+ * resource is picked up again or its file changes.
+ *
+ * @author francis pouatcha
+ *
+ */
+@Singleton
+public class EntityFieldIndex {
+
+	private final JavaSourceCache javaSourceCache;
+
+	private final Map<String, EntityFields> entities = new HashMap<String, EntityFields>();
+
+	@Inject
+	public EntityFieldIndex(JavaSourceCache javaSourceCache) {
+		this.javaSourceCache = javaSourceCache;
+	}
+
+	/**
+	 * Collects the property paths of the entity held by the given resource.
+	 * Relationship fields (@OneToOne, @ManyToOne) are followed up to the given
+	 * depth, other fields are returned as they are if includeDirectFields is
+	 * set.
+	 */
+	public List<String> getPropertyPaths(Project project, Resource<?> resource,
+			int maxDepth, boolean includeDirectFields) {
+		List<String> paths = new ArrayList<String>();
+		EntityFields entity = getEntityFields(project,
+				Utils.getJavaResource(resource));
+		if (entity == null)
+			return paths;
+		Set<String> visited = new HashSet<String>();
+		visited.add(entity.key);
+		collect(project, entity, "", 0, maxDepth, includeDirectFields, visited,
+				paths);
+		return paths;
+	}
+
+	private void collect(Project project, EntityFields entity, String prefix,
+			int depth, int maxDepth, boolean includeDirectFields,
+			Set<String> visited, List<String> paths) {
+		for (EntityField field : entity.fields) {
+			if (!field.relationship) {
+				if (depth > 0 || includeDirectFields)
+					paths.add(prefix + field.name);
+				continue;
+			}
+			if (depth >= maxDepth)
+				continue;
+			EntityFields target = getEntityFields(project,
+					resolve(project, field));
+			if (target == null || !visited.add(target.key))
+				continue;
+			collect(project, target, prefix + field.name + ".", depth + 1,
+					maxDepth, includeDirectFields, visited, paths);
+			visited.remove(target.key);
+		}
+	}
+
+	public void onPickup(@Observes PickupResource event) {
+		JavaResource javaResource = Utils
+				.getJavaResource(event.getResource());
+		if (javaResource == null)
+			return;
+		synchronized (this) {
+			entities.remove(javaResource.getUnderlyingResourceObject()
+					.getAbsolutePath());
+		}
+	}
+
+	private EntityFields getEntityFields(Project project,
+			JavaResource javaResource) {
+		if (javaResource == null || !javaResource.exists())
+			return null;
+		File file = javaResource.getUnderlyingResourceObject();
+		String key = file.getAbsolutePath();
+		synchronized (this) {
+			EntityFields entity = entities.get(key);
+			if (entity != null && entity.lastModified == file.lastModified())
+				return entity;
+		}
+		JavaSource<?> javaSource = DescriptionPluginUtils
+				.readCurrentResource(javaResource, javaSourceCache);
+		if (!javaSource.isClass())
+			return null;
+		List<EntityField> fields = new ArrayList<EntityField>();
+		for (Field<JavaClass> field : ((JavaClass) javaSource).getFields()) {
+			if (field.hasAnnotation(Id.class))
+				continue;
+			if (field.hasAnnotation(Version.class))
+				continue;
+			boolean relationship = field.hasAnnotation(OneToOne.class)
+					|| field.hasAnnotation(ManyToOne.class);
+			fields.add(new EntityField(field.getName(), field
+					.getQualifiedType(), relationship));
+		}
+		EntityFields entity = new EntityFields(key, file.lastModified(),
+				Collections.unmodifiableList(fields));
+		synchronized (this) {
+			entities.put(key, entity);
+		}
+		return entity;
+	}
+
+	/*
+	 * The related entity is looked up in the source folder by its qualified
+	 * type. The resolved resource is kept on the field.
+	 */
+	private JavaResource resolve(Project project, EntityField field) {
+		if (field.target == null) {
+			JavaSourceFacet java = project.getFacet(JavaSourceFacet.class);
+			String resourcePath = field.qualifiedType.replace(".",
+					File.separator) + ".java";
+			Resource<?> child = java.getSourceFolder().getChild(resourcePath);
+			if (!(child instanceof JavaResource) || !child.exists())
+				return null;
+			field.target = (JavaResource) child;
+		}
+		return field.target;
+	}
+
+	private static class EntityFields {
+		private final String key;
+		private final long lastModified;
+		private final List<EntityField> fields;
+
+		EntityFields(String key, long lastModified, List<EntityField> fields) {
+			this.key = key;
+			this.lastModified = lastModified;
+			this.fields = fields;
+		}
+	}
+
+	private static class EntityField {
+		private final String name;
+		private final String qualifiedType;
+		private final boolean relationship;
+		private volatile JavaResource target;
+
+		EntityField(String name, String qualifiedType, boolean relationship) {
+			this.name = name;
+			this.qualifiedType = qualifiedType;
+			this.relationship = relationship;
+		}
+	}
+}
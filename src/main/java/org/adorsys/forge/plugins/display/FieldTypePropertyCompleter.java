@@ -1,79 +1,42 @@
 package org.adorsys.forge.plugins.display;
 
-import java.io.File;
-import java.io.FileNotFoundException;
-import java.util.ArrayList;
 import java.util.List;
 
 import javax.inject.Inject;
-import javax.persistence.Id;
-import javax.persistence.ManyToOne;
-import javax.persistence.OneToOne;
-import javax.persistence.Version;
 
-import org.apache.commons.lang3.StringUtils;
-import org.jboss.forge.parser.java.Field;
-import org.jboss.forge.parser.java.JavaClass;
-import org.jboss.forge.parser.java.JavaSource;
+import org.adorsys.forge.plugins.utils.CommandStatistics;
 import org.jboss.forge.project.Project;
-import org.jboss.forge.project.facets.JavaSourceFacet;
 import org.jboss.forge.resources.Resource;
-import org.jboss.forge.resources.java.JavaResource;
 import org.jboss.forge.shell.Shell;
 import org.jboss.forge.shell.completer.SimpleTokenCompleter;
-import org.jboss.forge.shell.util.ResourceUtil;
 
 public class FieldTypePropertyCompleter extends SimpleTokenCompleter{
    private final Shell shell;
+   private final Project project;
+   private final EntityFieldIndex entityFieldIndex;
 
-   @Inject 
-   private Project project;
    @Inject
-   public FieldTypePropertyCompleter(Shell shell)
+   public FieldTypePropertyCompleter(Shell shell, Project project,
+         EntityFieldIndex entityFieldIndex)
    {
       this.shell = shell;
+      this.project = project;
+      this.entityFieldIndex = entityFieldIndex;
    }
 
 	@Override
 	public List<String> getCompletionTokens() {
-		final List<String> tokens = new ArrayList<String>();
 		final Resource<?> currentResource = shell.getCurrentResource();
+		/*
+		 * Only the fields of the directly referenced entities, as display-field
+		 * resolves the part before the last dot as a field of this class.
+		 */
+		CommandStatistics.Probe probe = CommandStatistics.get().startCompletion(getClass());
 		try {
-			final JavaClass javaClass = ResourceUtil
-					.getJavaClassFromResource(currentResource);
-			for (Field<JavaClass> oneField : javaClass.getFields()) {
-				if(oneField.hasAnnotation(Id.class))continue;
-				if(oneField.hasAnnotation(Version.class)) continue;
-				if(oneField.hasAnnotation(OneToOne.class) || oneField.hasAnnotation(ManyToOne.class)){
-					/*
-					 * For relationship fields, show nested fields.
-					 */
-					String qualifiedType = oneField.getQualifiedType();
-					JavaSourceFacet java = project.getFacet(JavaSourceFacet.class);
-					String packagetName = StringUtils.substringBeforeLast(qualifiedType, ".");
-					String resourcePath = packagetName.replace(".", File.separator) + File.separator + oneField.getType() + ".java";
-					Resource<?> child = java.getSourceFolder().getChild(resourcePath);
-					if(!child.exists()) continue;
-					JavaResource javaResource = (JavaResource) child;
-					JavaSource<?> javaSource = javaResource.getJavaSource();
-					if(!javaSource.isClass()) continue;
-					JavaClass nestedClass = (JavaClass) javaSource;
-					List<Field<JavaClass>> nestedFields = nestedClass.getFields();
-					for (Field<JavaClass> nestedField : nestedFields) {
-						if(nestedField.hasAnnotation(Id.class))continue;
-						if(nestedField.hasAnnotation(Version.class)) continue;
-						if(nestedField.hasAnnotation(OneToOne.class) || nestedField.hasAnnotation(ManyToOne.class))
-							continue;
-						tokens.add(oneField.getName()+"."+nestedField.getName());
-					}
-					
-				}
-			}
-
-		} catch (FileNotFoundException e) {
-			throw new RuntimeException(e);
+			return entityFieldIndex.getPropertyPaths(project, currentResource, 1,
+					false);
+		} finally {
+			probe.end(0);
 		}
-
-		return tokens;
 	}
 }
@@ -0,0 +1,33 @@
+package org.adorsys.forge.plugins.format;
+
+import org.adorsys.forge.plugins.description.BatchCommands;
+import org.adorsys.forge.plugins.description.DescriptionBatch.Operation;
+import org.adorsys.javaext.format.NumberType;
+import org.jboss.forge.parser.java.JavaClass;
+
+/**
+ * The format commands of a batch file.
+ *
+ * @author francis pouatcha
+ *
+ */
+public class FormatBatchCommands implements BatchCommands {
+
+	private static final String ADD_NUMBER_TYPE = "add-number-type";
+	private static final String ADD_DATE_PATTERN = "add-date-pattern";
+
+	@Override
+	public boolean supports(String command) {
+		return ADD_NUMBER_TYPE.equals(command) || ADD_DATE_PATTERN.equals(command);
+	}
+
+	@Override
+	public boolean apply(JavaClass javaClass, Operation operation) {
+		if (ADD_NUMBER_TYPE.equals(operation.getCommand()))
+			return FormatEditor.addNumberType(javaClass, operation.getMember(),
+					NumberType.valueOf(operation.getRequiredOption("type")));
+		return FormatEditor.addDatePattern(javaClass, operation.getMember(),
+				operation.getRequiredOption("pattern"), operation.getOption("prefix"),
+				operation.getOption("suffix"));
+	}
+}
@@ -0,0 +1,69 @@
+package org.adorsys.forge.plugins.format;
+
+import java.math.BigDecimal;
+
+import org.adorsys.javaext.format.DateFormatPattern;
+import org.adorsys.javaext.format.NumberFormatType;
+import org.adorsys.javaext.format.NumberType;
+import org.apache.commons.lang3.StringUtils;
+import org.jboss.forge.parser.java.Annotation;
+import org.jboss.forge.parser.java.Field;
+import org.jboss.forge.parser.java.JavaClass;
+
+/**
+ * Applies the format commands to a parsed class without saving it.
+ *
+ * @author francis pouatcha
+ *
+ */
+public class FormatEditor {
+
+	/**
+	 * Sets the number type of a BigDecimal property.
+	 *
+	 * @return true if the class was modified and has to be saved.
+	 */
+	public static boolean addNumberType(JavaClass javaClass, String property, NumberType numberType) {
+		final Field<JavaClass> field = getField(javaClass, property);
+		if(!field.getQualifiedType().equals(BigDecimal.class.getName())){
+			throw new IllegalStateException(
+					"The property '" + property
+					+ "' is not a BigDecimal" );
+		}
+		Annotation<JavaClass> numberFormatTypeAnnotation = field.getAnnotation(NumberFormatType.class);
+		if(numberFormatTypeAnnotation==null){
+			numberFormatTypeAnnotation = field.addAnnotation(NumberFormatType.class);
+		}
+		numberFormatTypeAnnotation.setEnumArrayValue(numberType);
+		return true;
+	}
+
+	/**
+	 * Sets the date pattern of a property. Blank prefix and suffix are left
+	 * unchanged.
+	 *
+	 * @return true if the class was modified and has to be saved.
+	 */
+	public static boolean addDatePattern(JavaClass javaClass, String property, String pattern, String prefix, String suffix) {
+		final Field<JavaClass> field = getField(javaClass, property);
+		Annotation<JavaClass> dateFormatPatternAnnotation = field.getAnnotation(DateFormatPattern.class);
+		if(dateFormatPatternAnnotation==null){
+			dateFormatPatternAnnotation = field.addAnnotation(DateFormatPattern.class);
+		}
+		dateFormatPatternAnnotation.setStringValue("pattern", pattern);
+		if(StringUtils.isNotBlank(prefix))
+			dateFormatPatternAnnotation.setStringValue("prefix", prefix);
+		if(StringUtils.isNotBlank(suffix))
+			dateFormatPatternAnnotation.setStringValue("suffix", suffix);
+		return true;
+	}
+
+	private static Field<JavaClass> getField(JavaClass javaClass, String property) {
+		final Field<JavaClass> field = javaClass.getField(property);
+		if (field == null)
+			throw new IllegalStateException(
+					"The current class has no property named '" + property
+					+ "'");
+		return field;
+	}
+}
@@ -1,30 +1,23 @@
 package org.adorsys.forge.plugins.format;
 
-import java.io.FileNotFoundException;
-import java.math.BigDecimal;
-
 import javax.enterprise.event.Event;
 import javax.inject.Inject;
 
 import org.adorsys.forge.plugins.description.DescriptionFacet;
 import org.adorsys.forge.plugins.description.DescriptionPluginUtils;
 import org.adorsys.forge.plugins.description.JavaClassOrInterface;
-import org.adorsys.javaext.format.DateFormatPattern;
-import org.adorsys.javaext.format.NumberFormatType;
+import org.adorsys.forge.plugins.utils.JavaSourceCache;
+import org.adorsys.forge.plugins.utils.SaveService;
+import org.adorsys.forge.plugins.utils.Timed;
 import org.adorsys.javaext.format.NumberType;
-import org.apache.commons.lang3.StringUtils;
-import org.jboss.forge.parser.java.Annotation;
-import org.jboss.forge.parser.java.Field;
 import org.jboss.forge.parser.java.JavaClass;
 import org.jboss.forge.parser.java.JavaSource;
 import org.jboss.forge.project.Project;
-import org.jboss.forge.project.facets.JavaSourceFacet;
 import org.jboss.forge.project.facets.events.InstallFacets;
 import org.jboss.forge.resources.Resource;
 import org.jboss.forge.shell.Shell;
 import org.jboss.forge.shell.ShellMessages;
 import org.jboss.forge.shell.completer.PropertyCompleter;
-import org.jboss.forge.shell.events.PickupResource;
 import org.jboss.forge.shell.plugins.Alias;
 import org.jboss.forge.shell.plugins.Command;
 import org.jboss.forge.shell.plugins.Help;
@@ -45,6 +38,7 @@ import org.jboss.forge.shell.plugins.SetupCommand;
 @RequiresProject
 @Help("This plugin will hel you add format description on entity fields.")
 @RequiresFacet({ DescriptionFacet.class })
+@Timed
 public class FormatPlugin implements Plugin {
 
 	@Inject
@@ -54,7 +48,10 @@ public class FormatPlugin implements Plugin {
 	private Event<InstallFacets> request;
 
 	@Inject
-	private Event<PickupResource> pickup;
+	private SaveService saveService;
+
+	@Inject
+	private JavaSourceCache javaSourceCache;
 
 	@Inject
 	private Shell shell;
@@ -80,7 +77,7 @@ public class FormatPlugin implements Plugin {
 		final Resource<?> currentResource = shell.getCurrentResource();
 			
 		JavaClassOrInterface javaClassOrInterface = DescriptionPluginUtils
-				.inspectResource(currentResource);
+				.inspectResource(currentResource, javaSourceCache);
 
 		if (!javaClassOrInterface.isClass()) {
 			throw new IllegalStateException(
@@ -88,23 +85,8 @@ public class FormatPlugin implements Plugin {
 		}
 
 		JavaClass javaClass = javaClassOrInterface.getJavaClass();
-		
-		final Field<JavaClass> field = javaClass.getField(property);
-		if (field == null)
-			throw new IllegalStateException(
-					"The current class has no property named '" + property
-					+ "'");
-		if(!field.getQualifiedType().equals(BigDecimal.class.getName())){
-			throw new IllegalStateException(
-					"The property '" + property
-					+ "' is not a BigDecimal" );
-		}
-		Annotation<JavaClass> numberFormatTypeAnnotation = field.getAnnotation(NumberFormatType.class);
-		if(numberFormatTypeAnnotation==null){
-			numberFormatTypeAnnotation = field.addAnnotation(NumberFormatType.class);
-		}
-		numberFormatTypeAnnotation.setEnumArrayValue(numberType);
-		saveAndFire(javaClass);
+		if (FormatEditor.addNumberType(javaClass, property, numberType))
+			saveAndFire(javaClass);
 	}
 	
 	@Command(value = "add-date-pattern", help = "Adds a number format pattern to the format.")
@@ -117,7 +99,7 @@ public class FormatPlugin implements Plugin {
 		final Resource<?> currentResource = shell.getCurrentResource();
 			
 		JavaClassOrInterface javaClassOrInterface = DescriptionPluginUtils
-				.inspectResource(currentResource);
+				.inspectResource(currentResource, javaSourceCache);
 
 		if (!javaClassOrInterface.isClass()) {
 			throw new IllegalStateException(
@@ -125,35 +107,11 @@ public class FormatPlugin implements Plugin {
 		}
 
 		JavaClass javaClass = javaClassOrInterface.getJavaClass();
-		
-		final Field<JavaClass> field = javaClass.getField(property);
-		if (field == null)
-			throw new IllegalStateException(
-					"The current class has no property named '" + property
-					+ "'");
-
-		Annotation<JavaClass> dateFormatPatternAnnotation = field.getAnnotation(DateFormatPattern.class);
-		if(dateFormatPatternAnnotation==null){
-			dateFormatPatternAnnotation = field.addAnnotation(DateFormatPattern.class);
-		}
-		dateFormatPatternAnnotation.setStringValue("pattern", pattern);
-		if(StringUtils.isNotBlank(prefix))
-			dateFormatPatternAnnotation.setStringValue("prefix", prefix);
-		if(StringUtils.isNotBlank(suffix))
-			dateFormatPatternAnnotation.setStringValue("suffix", suffix);
-		saveAndFire(javaClass);
+		if (FormatEditor.addDatePattern(javaClass, property, pattern, prefix, suffix))
+			saveAndFire(javaClass);
 	}
 
-	private void saveAndFire(JavaSource<?> source){
-		final JavaSourceFacet javaSourceFacet = project.getFacet(JavaSourceFacet.class);
-		try {
-			javaSourceFacet.saveJavaSource(source);
-			pickup.fire(new PickupResource(javaSourceFacet.getJavaResource(source)));
-		} catch (FileNotFoundException e) {
-			throw new IllegalStateException(
-					"The current resource '"
-							+ source.getName() + "' was deleted from the file system.");
-		}
-
+	private void saveAndFire(JavaSource<?> source) {
+		saveService.saveAndFire(project, source);
 	}
 }
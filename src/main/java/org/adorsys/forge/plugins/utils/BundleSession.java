@@ -0,0 +1,110 @@
+package org.adorsys.forge.plugins.utils;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Properties;
+
+/**
+ * Buffers property changes for a set of bundle files and writes each bundle
+ * once on {@link #flush()}.
+ *
+ * A <code>null</code> value means the key must exist in the bundle, an
+ * existing value is kept. Bundles are reloaded and merged under the lock of
+ * the {@link PropertiesFileWriter}, so that changes of other shells are kept.
+ *
+ * @author francis pouatcha
+ *
+ */
+public class BundleSession {
+
+	private final Map<File, Map<String, String>> pending = new LinkedHashMap<File, Map<String, String>>();
+
+	public synchronized void put(File bundleFile, String key, String value) {
+		Map<String, String> entries = pending.get(bundleFile);
+		if (entries == null) {
+			entries = new LinkedHashMap<String, String>();
+			pending.put(bundleFile, entries);
+		}
+		if (value == null && entries.containsKey(key))
+			return;// Do not loose a value set earlier in this session.
+		entries.put(key, value);
+	}
+
+	public synchronized boolean isEmpty() {
+		return pending.isEmpty();
+	}
+
+	/**
+	 * Writes all pending changes, one write per bundle file. Bundles whose
+	 * content would not change are not written.
+	 *
+	 * @return the number of bundle files written.
+	 */
+	public synchronized int flush() {
+		int written = 0;
+		for (final Entry<File, Map<String, String>> bundle : pending.entrySet()) {
+			boolean changed = PropertiesFileWriter.update(bundle.getKey(), new PropertiesFileWriter.Update() {
+				@Override
+				public boolean apply(Properties properties) {
+					return merge(properties, bundle.getValue());
+				}
+			});
+			if (changed)
+				written++;
+		}
+		pending.clear();
+		return written;
+	}
+
+	/*
+	 * Applies the pending entries to the loaded properties and tells if one of
+	 * them changed.
+	 */
+	private static boolean merge(Properties properties, Map<String, String> entries) {
+		boolean changed = false;
+		for (Entry<String, String> entry : entries.entrySet()) {
+			String key = entry.getKey();
+			String value = entry.getValue();
+			String existing = properties.getProperty(key);
+			if (value == null) {
+				if (existing != null)
+					continue;
+				value = "";
+			}
+			if (value.equals(existing))
+				continue;
+			properties.setProperty(key, value);
+			changed = true;
+		}
+		return changed;
+	}
+
+	public static Properties load(File bundleFile) {
+		Properties properties = new Properties();
+		if (!bundleFile.exists())
+			return properties;
+		InputStream in = null;
+		try {
+			in = new FileInputStream(bundleFile);
+			properties.load(in);
+		} catch (IOException e) {
+			throw new IllegalStateException("Could not read the bundle file '"
+					+ bundleFile + "'", e);
+		} finally {
+			Utils.closeQuietly(in);
+		}
+		return properties;
+	}
+
+	/**
+	 * Replaces the content of the bundle file, see {@link PropertiesFileWriter}.
+	 */
+	public static void store(File bundleFile, Properties properties) {
+		PropertiesFileWriter.store(bundleFile, properties);
+	}
+}
@@ -0,0 +1,287 @@
+package org.adorsys.forge.plugins.utils;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.ServiceConfigurationError;
+import java.util.ServiceLoader;
+
+/**
+ * Timings of the phases of the plugin commands, aggregated per command name
+ * and phase. The command being run is set by the {@link TimedInterceptor}
+ * around each command of a plugin annotated with {@link Timed}; phases
+ * recorded outside of a command, from the launcher, are ignored. Completions
+ * are aggregated under the name of the completer.
+ *
+ * Each phase is also reported to the {@link PhaseListener}s found with the
+ * {@link ServiceLoader}, see the jfr profile of the build.
+ *
+ * The last {@value #MAX_SAMPLES} samples of each phase are kept for the
+ * percentiles. If a trace file is set, the samples of each command are
+ * appended to it as lines of the form
+ * timestamp,command,phase,micros,bytes once the command completes.
+ *
+ * @author francis pouatcha
+ *
+ */
+public class CommandStatistics {
+
+	public enum Phase {
+		COMMAND, PARSE, MUTATE, SAVE, BUNDLE_IO, PICKUP, COMPLETE
+	}
+
+	public static final int MAX_SAMPLES = 1024;
+
+	private static final CommandStatistics INSTANCE = new CommandStatistics(loadListeners());
+
+	/*
+	 * Commands are run one at a time by the shell, their phases may run on
+	 * the workers of the JavaSourceScanner.
+	 */
+	private volatile String command;
+
+	private final PhaseListener[] listeners;
+
+	private final Map<String, PhaseStatistics> statistics = new LinkedHashMap<String, PhaseStatistics>();
+	private final List<String> trace = new ArrayList<String>();
+	private File traceFile;
+
+	CommandStatistics(PhaseListener[] listeners) {
+		this.listeners = listeners;
+	}
+
+	public static CommandStatistics get() {
+		return INSTANCE;
+	}
+
+	/**
+	 * Starts recording the phases of the given command.
+	 *
+	 * @return the probe of the command to pass to {@link #end(Probe)}.
+	 */
+	public Probe begin(String command) {
+		this.command = command;
+		return new Probe(command, Phase.COMMAND, null);
+	}
+
+	/**
+	 * Records the duration of the command and appends its samples to the
+	 * trace file.
+	 */
+	public void end(Probe commandProbe) {
+		commandProbe.end(0);
+		command = null;
+		List<String> lines;
+		File file;
+		synchronized (this) {
+			lines = new ArrayList<String>(trace);
+			trace.clear();
+			file = traceFile;
+		}
+		if (file != null && !lines.isEmpty())
+			append(file, lines);
+	}
+
+	/**
+	 * Starts a phase of the current command on the given class.
+	 *
+	 * @param className
+	 *            the class, bundle or file the phase works on.
+	 */
+	public Probe start(Phase phase, String className) {
+		return new Probe(command, phase, className);
+	}
+
+	/**
+	 * Starts a completion of the given completer.
+	 */
+	public Probe startCompletion(Class<?> completer) {
+		return new Probe(completer.getSimpleName(), Phase.COMPLETE, null);
+	}
+
+	private void record(String command, Phase phase, long nanos, long bytes) {
+		String key = command + "," + phase;
+		synchronized (this) {
+			PhaseStatistics phaseStatistics = statistics.get(key);
+			if (phaseStatistics == null) {
+				phaseStatistics = new PhaseStatistics(command, phase);
+				statistics.put(key, phaseStatistics);
+			}
+			phaseStatistics.add(nanos, bytes);
+			if (traceFile != null)
+				trace.add(System.currentTimeMillis() + "," + key + "," + (nanos / 1000) + "," + bytes);
+		}
+	}
+
+	public synchronized List<PhaseStatistics> getStatistics() {
+		List<PhaseStatistics> result = new ArrayList<PhaseStatistics>();
+		for (PhaseStatistics phaseStatistics : statistics.values()) {
+			result.add(phaseStatistics.copy());
+		}
+		return result;
+	}
+
+	public synchronized void reset() {
+		statistics.clear();
+		trace.clear();
+	}
+
+	/**
+	 * Sets the file the samples are appended to, null to stop tracing.
+	 */
+	public synchronized void setTraceFile(File traceFile) {
+		this.traceFile = traceFile;
+	}
+
+	public synchronized File getTraceFile() {
+		return traceFile;
+	}
+
+	/*
+	 * Listeners that can not be loaded, as the JFR listener on a virtual
+	 * machine older than 11, are skipped.
+	 */
+	private static PhaseListener[] loadListeners() {
+		List<PhaseListener> listeners = new ArrayList<PhaseListener>();
+		Iterator<PhaseListener> iterator = ServiceLoader.load(PhaseListener.class,
+				CommandStatistics.class.getClassLoader()).iterator();
+		while (true) {
+			try {
+				if (!iterator.hasNext())
+					break;
+			} catch (ServiceConfigurationError e) {
+				break;
+			}
+			try {
+				listeners.add(iterator.next());
+			} catch (ServiceConfigurationError e) {
+				continue;
+			} catch (LinkageError e) {
+				continue;
+			}
+		}
+		return listeners.toArray(new PhaseListener[listeners.size()]);
+	}
+
+	private static void append(File file, List<String> lines) {
+		Writer writer = null;
+		try {
+			writer = new OutputStreamWriter(new FileOutputStream(file, true), "UTF-8");
+			for (String line : lines) {
+				writer.write(line);
+				writer.write('\n');
+			}
+		} catch (IOException e) {
+			throw new IllegalStateException("Could not write the trace file '" + file + "'", e);
+		} finally {
+			Utils.closeQuietly(writer);
+		}
+	}
+
+	/**
+	 * A running phase, ended once with the number of bytes written.
+	 */
+	public class Probe {
+		private final String command;
+		private final Phase phase;
+		private final Object[] tokens;
+		private final long start;
+
+		Probe(String command, Phase phase, String className) {
+			this.command = command;
+			this.phase = phase;
+			this.tokens = new Object[listeners.length];
+			for (int i = 0; i < listeners.length; i++) {
+				tokens[i] = listeners[i].start(phase, command, className);
+			}
+			this.start = System.nanoTime();
+		}
+
+		public void end(long bytes) {
+			long nanos = System.nanoTime() - start;
+			for (int i = 0; i < listeners.length; i++) {
+				listeners[i].end(tokens[i], bytes);
+			}
+			if (command != null)
+				record(command, phase, nanos, bytes);
+		}
+	}
+
+	/**
+	 * The samples of a phase of a command.
+	 */
+	public static class PhaseStatistics {
+		private final String command;
+		private final Phase phase;
+		private final long[] samples;
+		private long count;
+		private long max;
+		private long bytes;
+
+		PhaseStatistics(String command, Phase phase) {
+			this(command, phase, new long[MAX_SAMPLES]);
+		}
+
+		private PhaseStatistics(String command, Phase phase, long[] samples) {
+			this.command = command;
+			this.phase = phase;
+			this.samples = samples;
+		}
+
+		void add(long nanos, long bytes) {
+			samples[(int) (count % samples.length)] = nanos;
+			count++;
+			max = Math.max(max, nanos);
+			this.bytes += bytes;
+		}
+
+		PhaseStatistics copy() {
+			PhaseStatistics copy = new PhaseStatistics(command, phase, samples.clone());
+			copy.count = count;
+			copy.max = max;
+			copy.bytes = bytes;
+			return copy;
+		}
+
+		public String getCommand() {
+			return command;
+		}
+
+		public Phase getPhase() {
+			return phase;
+		}
+
+		public long getCount() {
+			return count;
+		}
+
+		/**
+		 * @return the percentile of the kept samples in milliseconds.
+		 */
+		public double getPercentileMillis(int percentile) {
+			int size = (int) Math.min(count, samples.length);
+			if (size == 0)
+				return 0;
+			long[] sorted = Arrays.copyOf(samples, size);
+			Arrays.sort(sorted);
+			int index = (int) Math.ceil(percentile / 100.0 * size) - 1;
+			return sorted[Math.max(0, index)] / 1000000.0;
+		}
+
+		public double getMaxMillis() {
+			return max / 1000000.0;
+		}
+
+		public long getBytes() {
+			return bytes;
+		}
+	}
+}
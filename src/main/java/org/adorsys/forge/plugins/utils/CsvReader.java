@@ -0,0 +1,117 @@
+package org.adorsys.forge.plugins.utils;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Streams the rows of a comma separated file. Blank lines and lines starting
+ * with '#' are skipped. Blanks around a field are dropped. Fields may be
+ * enclosed in double quotes to contain commas or leading and trailing blanks;
+ * the quoted text is kept as it is and a doubled quote stands for a quote.
+ *
+ * @author francis pouatcha
+ *
+ */
+public class CsvReader implements Closeable {
+
+	private final File file;
+	private final BufferedReader reader;
+	private int lineNumber;
+
+	public CsvReader(File file) throws IOException {
+		this.file = file;
+		this.reader = new BufferedReader(new InputStreamReader(
+				new FileInputStream(file), "UTF-8"));
+	}
+
+	/**
+	 * @return the fields of the next row or null at the end of the file.
+	 */
+	public String[] readRow() throws IOException {
+		String line;
+		while ((line = reader.readLine()) != null) {
+			lineNumber++;
+			String trimmed = line.trim();
+			if (trimmed.length() == 0 || trimmed.startsWith("#"))
+				continue;
+			return parse(line);
+		}
+		return null;
+	}
+
+	/**
+	 * Reads the next row and checks that it has at least the given number of
+	 * fields.
+	 */
+	public String[] readRow(int minFields) throws IOException {
+		String[] row = readRow();
+		if (row != null && row.length < minFields)
+			throw new IllegalStateException("Line " + lineNumber + " of '"
+					+ file + "' has " + row.length + " fields, expected "
+					+ minFields);
+		return row;
+	}
+
+	public int getLineNumber() {
+		return lineNumber;
+	}
+
+	@Override
+	public void close() throws IOException {
+		reader.close();
+	}
+
+	static String[] parse(String line) {
+		List<String> fields = new ArrayList<String>();
+		StringBuilder field = new StringBuilder();
+		boolean quoted = false;
+		/*
+		 * Length of the field up to the end of its last quoted part, which is
+		 * never trimmed.
+		 */
+		int kept = 0;
+		for (int i = 0; i < line.length(); i++) {
+			char c = line.charAt(i);
+			if (quoted) {
+				if (c == '"') {
+					if (i + 1 < line.length() && line.charAt(i + 1) == '"') {
+						field.append(c);
+						i++;
+					} else {
+						quoted = false;
+						kept = field.length();
+					}
+				} else {
+					field.append(c);
+				}
+			} else if (c == '"') {
+				quoted = true;
+			} else if (c == ',') {
+				fields.add(trim(field, kept));
+				field.setLength(0);
+				kept = 0;
+			} else if (field.length() > 0 || !Character.isWhitespace(c)) {
+				field.append(c);
+			}
+		}
+		fields.add(trim(field, kept));
+		return fields.toArray(new String[fields.size()]);
+	}
+
+	/*
+	 * Drops the blanks following the kept part of the field.
+	 */
+	private static String trim(StringBuilder field, int kept) {
+		int length = field.length();
+		while (length > kept && Character.isWhitespace(field.charAt(length - 1)))
+			length--;
+		field.setLength(length);
+		return field.toString();
+	}
+}
@@ -0,0 +1,182 @@
+package org.adorsys.forge.plugins.utils;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+import org.adorsys.forge.plugins.utils.CommandStatistics.Phase;
+import org.adorsys.forge.plugins.utils.CommandStatistics.Probe;
+import org.jboss.forge.parser.java.JavaSource;
+import org.jboss.forge.project.Project;
+import org.jboss.forge.resources.java.JavaResource;
+import org.jboss.forge.shell.Shell;
+
+/**
+ * LRU cache of the parsed java sources of the current project. Entries are
+ * keyed by the absolute path of the source file and are only reused as long
+ * as the modification time and the size of the file did not change. All
+ * entries are dropped when the shell changes to another project.
+ *
+ * The models are mutable and shared. A model changed by a command that did
+ * not save it, because it failed or only edited the model, is dropped by
+ * {@link #release()} at the end of the command, so that the next command
+ * starts from the file again.
+ *
+ * @author francis pouatcha
+ *
+ */
+@Singleton
+public class JavaSourceCache {
+
+	public static final String MAX_ENTRIES_PROPERTY = "forge.description.cache.maxEntries";
+	public static final int DEFAULT_MAX_ENTRIES = 256;
+
+	private final Shell shell;
+
+	private final LinkedHashMap<String, CacheEntry> entries = new LinkedHashMap<String, CacheEntry>(
+			16, 0.75f, true) {
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<String, CacheEntry> eldest) {
+			if (size() > maxEntries) {
+				evictions++;
+				return true;
+			}
+			return false;
+		}
+	};
+
+	/*
+	 * Entries handed out since the last release.
+	 */
+	private final Set<String> lent = new HashSet<String>();
+
+	private String projectRoot;
+	private int maxEntries = Integer.getInteger(MAX_ENTRIES_PROPERTY, DEFAULT_MAX_ENTRIES);
+	private long hits;
+	private long misses;
+	private long evictions;
+	private long invalidations;
+
+	@Inject
+	public JavaSourceCache(Shell shell) {
+		this.shell = shell;
+	}
+
+	public JavaSource<?> getJavaSource(JavaResource javaResource)
+			throws FileNotFoundException {
+		File file = javaResource.getUnderlyingResourceObject();
+		String key = file.getAbsolutePath();
+		long lastModified = file.lastModified();
+		long length = file.length();
+		synchronized (this) {
+			checkProject();
+			CacheEntry entry = entries.get(key);
+			if (entry != null && entry.lastModified == lastModified
+					&& entry.length == length) {
+				hits++;
+				lent.add(key);
+				return entry.javaSource;
+			}
+			misses++;
+		}
+		Probe probe = CommandStatistics.get().start(Phase.PARSE, file.getName());
+		JavaSource<?> javaSource = javaResource.getJavaSource();
+		probe.end(0);
+		synchronized (this) {
+			if (maxEntries > 0) {
+				entries.put(key, new CacheEntry(javaSource, lastModified, length));
+				lent.add(key);
+			}
+		}
+		return javaSource;
+	}
+
+	/**
+	 * Drops the models handed out since the last release whose content no
+	 * longer is the parsed one. Called at the end of each command.
+	 */
+	public synchronized void release() {
+		for (String key : lent) {
+			CacheEntry entry = entries.get(key);
+			if (entry != null && !entry.isUnchanged()) {
+				entries.remove(key);
+				invalidations++;
+			}
+		}
+		lent.clear();
+	}
+
+	public synchronized void invalidate(File file) {
+		if (file != null && entries.remove(file.getAbsolutePath()) != null)
+			invalidations++;
+	}
+
+	public synchronized void clear() {
+		invalidations += entries.size();
+		entries.clear();
+		lent.clear();
+	}
+
+	public synchronized void setMaxEntries(int maxEntries) {
+		this.maxEntries = maxEntries;
+		while (entries.size() > maxEntries) {
+			String eldest = entries.keySet().iterator().next();
+			entries.remove(eldest);
+			evictions++;
+		}
+	}
+
+	public synchronized void resetStatistics() {
+		hits = misses = evictions = invalidations = 0;
+	}
+
+	public synchronized String getStatistics() {
+		long requests = hits + misses;
+		return "entries=" + entries.size() + "/" + maxEntries + ", hits=" + hits
+				+ ", misses=" + misses + ", hitRatio="
+				+ (requests == 0 ? 0 : hits * 100 / requests) + "%, evictions="
+				+ evictions + ", invalidations=" + invalidations;
+	}
+
+	/*
+	 * Starts over with empty entries and counters in another project.
+	 */
+	private void checkProject() {
+		Project project = shell.getCurrentProject();
+		String root = project == null ? null : project.getProjectRoot()
+				.getUnderlyingResourceObject().getAbsolutePath();
+		if (root == null ? projectRoot == null : root.equals(projectRoot))
+			return;
+		projectRoot = root;
+		entries.clear();
+		lent.clear();
+		resetStatistics();
+	}
+
+	private static class CacheEntry {
+		private final JavaSource<?> javaSource;
+		private final long lastModified;
+		private final long length;
+		private final byte[] hash;
+
+		CacheEntry(JavaSource<?> javaSource, long lastModified, long length) {
+			this.javaSource = javaSource;
+			this.lastModified = lastModified;
+			this.length = length;
+			this.hash = SaveService.hash(javaSource.toString());
+		}
+
+		boolean isUnchanged() {
+			return Arrays.equals(hash, SaveService.hash(javaSource.toString()));
+		}
+	}
+}
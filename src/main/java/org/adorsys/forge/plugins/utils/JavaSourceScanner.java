@@ -0,0 +1,106 @@
+package org.adorsys.forge.plugins.utils;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.adorsys.forge.plugins.utils.CommandStatistics.Phase;
+import org.adorsys.forge.plugins.utils.CommandStatistics.Probe;
+import org.jboss.forge.parser.JavaParser;
+import org.jboss.forge.parser.java.JavaSource;
+
+/**
+ * Parses all java sources of a source folder on a bounded pool of workers.
+ *
+ * @author francis pouatcha
+ *
+ */
+public class JavaSourceScanner {
+
+	private static final String JAVA_EXTENSION = ".java";
+
+	/**
+	 * Called from the worker threads with each parsed source.
+	 */
+	public interface Visitor {
+		void visit(File file, JavaSource<?> javaSource) throws Exception;
+	}
+
+	/**
+	 * Lists all java files of the source folder. If a package name is given,
+	 * only files in this package and its sub packages are returned.
+	 */
+	public static List<File> listJavaFiles(File sourceFolder, String packageName) {
+		File root = sourceFolder;
+		if (packageName != null && packageName.trim().length() > 0) {
+			root = new File(sourceFolder, packageName.trim().replace(".",
+					File.separator));
+		}
+		List<File> result = new ArrayList<File>();
+		collect(root, result);
+		return result;
+	}
+
+	private static void collect(File dir, List<File> result) {
+		File[] children = dir.listFiles();
+		if (children == null)
+			return;
+		for (File child : children) {
+			if (child.isDirectory()) {
+				collect(child, result);
+			} else if (child.getName().endsWith(JAVA_EXTENSION)) {
+				result.add(child);
+			}
+		}
+	}
+
+	/**
+	 * Parses the given files in parallel and hands each source to the visitor.
+	 *
+	 * @return the number of visited sources.
+	 */
+	public static int scan(List<File> files, final Visitor visitor) {
+		int threads = Math.max(1,
+				Math.min(Runtime.getRuntime().availableProcessors(), files.size()));
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		try {
+			List<Future<?>> futures = new ArrayList<Future<?>>(files.size());
+			for (final File file : files) {
+				futures.add(executor.submit(new Runnable() {
+					@Override
+					public void run() {
+						try {
+							Probe probe = CommandStatistics.get().start(Phase.PARSE, file.getName());
+							JavaSource<?> javaSource = JavaParser.parse(file);
+							probe.end(0);
+							visitor.visit(file, javaSource);
+						} catch (Exception e) {
+							throw new IllegalStateException("Could not process the source file '"
+									+ file + "'", e);
+						}
+					}
+				}));
+			}
+			for (Future<?> future : futures) {
+				try {
+					future.get();
+				} catch (ExecutionException e) {
+					Throwable cause = e.getCause();
+					if (cause instanceof RuntimeException)
+						throw (RuntimeException) cause;
+					throw new IllegalStateException(cause);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					throw new IllegalStateException(e);
+				}
+			}
+			return futures.size();
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+}
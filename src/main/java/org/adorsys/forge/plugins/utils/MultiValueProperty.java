@@ -0,0 +1,111 @@
+package org.adorsys.forge.plugins.utils;
+
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * The values of a comma separated property. Values keep their insertion
+ * order and are only stored once. Commas within parentheses belong to the
+ * value, so that a permission of the form Class(action)(expression) is one
+ * value whatever its expression. Plain values, like role names, are compared
+ * ignoring case; values with parentheses are compared as they are, since
+ * class names and expressions are case sensitive.
+ *
+ * @author francis pouatcha
+ *
+ */
+public class MultiValueProperty implements Iterable<String> {
+
+	public static final char SEPARATOR = ',';
+
+	private static final char OPEN = '(';
+	private static final char CLOSE = ')';
+
+	/*
+	 * Values keyed by their comparison form.
+	 */
+	private final LinkedHashMap<String, String> values = new LinkedHashMap<String, String>();
+
+	public static MultiValueProperty parse(String property) {
+		MultiValueProperty result = new MultiValueProperty();
+		if (property == null)
+			return result;
+		int start = 0;
+		int depth = 0;
+		for (int i = 0; i < property.length(); i++) {
+			char c = property.charAt(i);
+			if (c == OPEN) {
+				depth++;
+			} else if (c == CLOSE && depth > 0) {
+				depth--;
+			} else if (c == SEPARATOR && depth == 0) {
+				result.add(property.substring(start, i));
+				start = i + 1;
+			}
+		}
+		result.add(property.substring(start));
+		return result;
+	}
+
+	/**
+	 * @return true if the value was not yet present.
+	 */
+	public boolean add(String value) {
+		if (value == null)
+			return false;
+		String trimmed = value.trim();
+		if (trimmed.length() == 0)
+			return false;
+		String key = getKey(trimmed);
+		if (values.containsKey(key))
+			return false;
+		values.put(key, trimmed);
+		return true;
+	}
+
+	/**
+	 * @return true if at least one of the values was not yet present.
+	 */
+	public boolean addAll(Collection<String> newValues) {
+		boolean added = false;
+		for (String value : newValues) {
+			added |= add(value);
+		}
+		return added;
+	}
+
+	public boolean contains(String value) {
+		return value != null && values.containsKey(getKey(value.trim()));
+	}
+
+	private static String getKey(String value) {
+		return value.indexOf(OPEN) < 0 ? value.toLowerCase(Locale.ENGLISH) : value;
+	}
+
+	public int size() {
+		return values.size();
+	}
+
+	public boolean isEmpty() {
+		return values.isEmpty();
+	}
+
+	@Override
+	public Iterator<String> iterator() {
+		return values.values().iterator();
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder builder = new StringBuilder();
+		for (Map.Entry<String, String> entry : values.entrySet()) {
+			if (builder.length() > 0)
+				builder.append(SEPARATOR);
+			builder.append(entry.getValue());
+		}
+		return builder.toString();
+	}
+}
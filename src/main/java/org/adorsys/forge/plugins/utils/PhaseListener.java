@@ -0,0 +1,34 @@
+package org.adorsys.forge.plugins.utils;
+
+import org.adorsys.forge.plugins.utils.CommandStatistics.Phase;
+
+/**
+ * Receives the phases of the plugin commands and of the completers.
+ * Implementations are registered as services in
+ * META-INF/services/org.adorsys.forge.plugins.utils.PhaseListener and are
+ * called from the worker threads of the phases.
+ *
+ * @author francis pouatcha
+ *
+ */
+public interface PhaseListener {
+
+	/**
+	 * Called when a phase starts.
+	 *
+	 * @param command
+	 *            the command or completer, null outside of a command.
+	 * @param className
+	 *            the class, bundle or file the phase works on, may be null.
+	 * @return a token handed to {@link #end(Object, long)}.
+	 */
+	Object start(Phase phase, String command, String className);
+
+	/**
+	 * Called when the phase started with the token ends.
+	 *
+	 * @param bytes
+	 *            the number of bytes written by the phase.
+	 */
+	void end(Object token, long bytes);
+}
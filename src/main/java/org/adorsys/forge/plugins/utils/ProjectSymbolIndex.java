@@ -0,0 +1,296 @@
+package org.adorsys.forge.plugins.utils;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import javax.enterprise.event.Observes;
+import javax.inject.Singleton;
+
+import org.jboss.forge.project.Project;
+import org.jboss.forge.project.facets.JavaSourceFacet;
+import org.jboss.forge.resources.java.JavaResource;
+import org.jboss.forge.shell.events.PickupResource;
+import org.jboss.forge.spec.javaee.PersistenceFacet;
+
+/**
+ * Maps the simple and the qualified names of all types of the source folder
+ * to their file and kind. The index of a source folder is built on the first
+ * lookup and kept up to date with the resources picked up by the plugins.
+ * Types created or renamed outside of the shell are looked up in the source
+ * folder on a miss and added to the index.
+ *
+ * @author francis pouatcha
+ *
+ */
+@Singleton
+public class ProjectSymbolIndex {
+
+	public enum Kind {
+		CLASS, INTERFACE, ENUM, ANNOTATION
+	}
+
+	public static class Symbol {
+		private final String qualifiedName;
+		private final String simpleName;
+		private final File file;
+		private final Kind kind;
+
+		Symbol(String qualifiedName, String simpleName, File file, Kind kind) {
+			this.qualifiedName = qualifiedName;
+			this.simpleName = simpleName;
+			this.file = file;
+			this.kind = kind;
+		}
+
+		public String getQualifiedName() {
+			return qualifiedName;
+		}
+
+		public String getSimpleName() {
+			return simpleName;
+		}
+
+		public File getFile() {
+			return file;
+		}
+
+		public Kind getKind() {
+			return kind;
+		}
+	}
+
+	/*
+	 * String and character literals are matched first, so that comment
+	 * markers inside them, as in "http://", do not start a comment.
+	 */
+	private static final Pattern COMMENTS_AND_LITERALS = Pattern.compile(
+			"\"(?:\\\\.|[^\"\\\\\\n])*\"|'(?:\\\\.|[^'\\\\\\n])*'|/\\*.*?\\*/|//[^\\n]*",
+			Pattern.DOTALL);
+
+	/*
+	 * Symbols of each source folder, keyed by the absolute path of the folder.
+	 */
+	private final Map<String, Symbols> symbolsByFolder = new HashMap<String, Symbols>();
+
+	/**
+	 * Resolves a simple or qualified type name. If a simple name is used by
+	 * several types of the given kind, the one in the entity package is
+	 * preferred.
+	 *
+	 * @return the symbol or null if no type of that kind is found.
+	 */
+	public Symbol find(Project project, String name, Kind kind) {
+		if (name == null)
+			return null;
+		Symbols symbols = getSymbols(project);
+		Symbol symbol = find(project, symbols, name, kind);
+		if (symbol != null && symbol.file.exists())
+			return symbol;
+		if (symbol != null) {
+			synchronized (symbols) {
+				symbols.remove(symbol.file);
+			}
+		}
+		boolean found = refresh(project, symbols, name);
+		String entityPackage = getEntityPackage(project);
+		if (entityPackage != null)
+			found |= refresh(project, symbols, entityPackage + "." + name);
+		return found ? find(project, symbols, name, kind) : null;
+	}
+
+	/**
+	 * Returns the java resource of a simple or qualified type name.
+	 */
+	public JavaResource findResource(Project project, String name, Kind kind) {
+		Symbol symbol = find(project, name, kind);
+		if (symbol == null)
+			return null;
+		return getJavaResource(project, symbol.qualifiedName);
+	}
+
+	private Symbol find(Project project, Symbols symbols, String name, Kind kind) {
+		synchronized (symbols) {
+			Symbol symbol = symbols.byQualifiedName.get(name);
+			if (symbol != null)
+				return symbol.kind == kind ? symbol : null;
+			List<Symbol> candidates = symbols.bySimpleName.get(name);
+			if (candidates == null)
+				return null;
+			String entityPackage = getEntityPackage(project);
+			Symbol result = null;
+			for (Symbol candidate : candidates) {
+				if (candidate.kind != kind)
+					continue;
+				if (result == null)
+					result = candidate;
+				if (entityPackage != null
+						&& candidate.qualifiedName.equals(entityPackage + "." + name))
+					return candidate;
+			}
+			return result;
+		}
+	}
+
+	/*
+	 * Looks a type missing from the index up through the java source facet,
+	 * as the plugins did before the index, and indexes the file found.
+	 */
+	private boolean refresh(Project project, Symbols symbols, String qualifiedName) {
+		JavaResource javaResource = getJavaResource(project, qualifiedName);
+		if (javaResource == null || !javaResource.exists())
+			return false;
+		File file = javaResource.getUnderlyingResourceObject();
+		if (!file.getAbsolutePath().startsWith(symbols.root.getAbsolutePath()))
+			return false;
+		synchronized (symbols) {
+			symbols.remove(file);
+			symbols.add(file);
+			return symbols.byFile.containsKey(file);
+		}
+	}
+
+	private static JavaResource getJavaResource(Project project, String qualifiedName) {
+		try {
+			return project.getFacet(JavaSourceFacet.class).getJavaResource(qualifiedName);
+		} catch (FileNotFoundException e) {
+			return null;
+		}
+	}
+
+	private static String getEntityPackage(Project project) {
+		return project.hasFacet(PersistenceFacet.class) ? project.getFacet(
+				PersistenceFacet.class).getEntityPackage() : null;
+	}
+
+	public void onPickup(@Observes PickupResource event) {
+		JavaResource javaResource = Utils.getJavaResource(event
+				.getResource());
+		if (javaResource == null)
+			return;
+		File file = javaResource.getUnderlyingResourceObject();
+		List<Symbols> all;
+		synchronized (this) {
+			all = new ArrayList<Symbols>(symbolsByFolder.values());
+		}
+		for (Symbols symbols : all) {
+			if (file.getAbsolutePath().startsWith(symbols.root.getAbsolutePath())) {
+				synchronized (symbols) {
+					symbols.remove(file);
+					symbols.add(file);
+				}
+			}
+		}
+	}
+
+	private Symbols getSymbols(Project project) {
+		File sourceFolder = project.getFacet(JavaSourceFacet.class)
+				.getSourceFolder().getUnderlyingResourceObject();
+		String key = sourceFolder.getAbsolutePath();
+		synchronized (this) {
+			Symbols symbols = symbolsByFolder.get(key);
+			if (symbols == null) {
+				symbols = new Symbols(sourceFolder);
+				for (File file : JavaSourceScanner.listJavaFiles(sourceFolder, null)) {
+					symbols.add(file);
+				}
+				symbolsByFolder.put(key, symbols);
+			}
+			return symbols;
+		}
+	}
+
+	private static class Symbols {
+		private final File root;
+		private final Map<String, Symbol> byQualifiedName = new HashMap<String, Symbol>();
+		private final Map<String, List<Symbol>> bySimpleName = new HashMap<String, List<Symbol>>();
+		private final Map<File, Symbol> byFile = new HashMap<File, Symbol>();
+
+		Symbols(File root) {
+			this.root = root;
+		}
+
+		void add(File file) {
+			if (!file.exists())
+				return;
+			String relativePath = file.getAbsolutePath().substring(
+					root.getAbsolutePath().length() + 1);
+			String qualifiedName = relativePath.substring(0,
+					relativePath.length() - ".java".length()).replace(
+					File.separatorChar, '.');
+			String simpleName = file.getName().substring(0,
+					file.getName().length() - ".java".length());
+			Kind kind = readKind(file, simpleName);
+			if (kind == null)
+				return;
+			Symbol symbol = new Symbol(qualifiedName, simpleName, file, kind);
+			byQualifiedName.put(qualifiedName, symbol);
+			byFile.put(file, symbol);
+			List<Symbol> symbols = bySimpleName.get(simpleName);
+			if (symbols == null) {
+				symbols = new ArrayList<Symbol>(1);
+				bySimpleName.put(simpleName, symbols);
+			}
+			symbols.add(symbol);
+		}
+
+		void remove(File file) {
+			Symbol symbol = byFile.remove(file);
+			if (symbol == null)
+				return;
+			byQualifiedName.remove(symbol.qualifiedName);
+			List<Symbol> symbols = bySimpleName.get(symbol.simpleName);
+			if (symbols != null)
+				symbols.remove(symbol);
+		}
+	}
+
+	/*
+	 * Reads the kind of the top level type from the source text without
+	 * parsing the file.
+	 */
+	private static Kind readKind(File file, String simpleName) {
+		String content = COMMENTS_AND_LITERALS.matcher(read(file)).replaceAll(" ");
+		Matcher matcher = Pattern.compile(
+				"(@\\s*interface|\\bclass|\\binterface|\\benum)\\s+"
+						+ Pattern.quote(simpleName) + "\\b").matcher(content);
+		if (!matcher.find())
+			return null;
+		String keyword = matcher.group(1);
+		if (keyword.startsWith("@"))
+			return Kind.ANNOTATION;
+		if ("class".equals(keyword))
+			return Kind.CLASS;
+		if ("interface".equals(keyword))
+			return Kind.INTERFACE;
+		return Kind.ENUM;
+	}
+
+	private static String read(File file) {
+		StringBuilder content = new StringBuilder((int) file.length());
+		Reader reader = null;
+		try {
+			reader = new InputStreamReader(new FileInputStream(file), "UTF-8");
+			char[] buffer = new char[8192];
+			int read;
+			while ((read = reader.read(buffer)) != -1) {
+				content.append(buffer, 0, read);
+			}
+		} catch (IOException e) {
+			throw new IllegalStateException("Could not read the source file '"
+					+ file + "'", e);
+		} finally {
+			Utils.closeQuietly(reader);
+		}
+		return content.toString();
+	}
+}
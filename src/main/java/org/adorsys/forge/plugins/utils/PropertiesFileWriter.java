@@ -0,0 +1,217 @@
+package org.adorsys.forge.plugins.utils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.channels.FileLock;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeMap;
+import org.adorsys.forge.plugins.utils.CommandStatistics.Phase;
+import org.adorsys.forge.plugins.utils.CommandStatistics.Probe;
+
+/**
+ * Writes properties files so that parallel shells working on the same
+ * checkout neither lose updates nor leave truncated files behind.
+ *
+ * An update holds an advisory {@link FileLock} on the lock file
+ * {@value #LOCK_FILE_NAME} of the directory of the properties file while it
+ * reloads, changes and writes it. There is one lock file per directory and it
+ * is never deleted: a process waiting on a deleted lock file would write at
+ * the same time as one locking its replacement. The new content is written
+ * to a temporary file in the same directory, synced to disk and renamed over
+ * the properties file. The properties file is never deleted first, if the
+ * rename keeps failing the update fails and the file keeps its content.
+ * Entries are written sorted by key, so that unchanged entries keep their
+ * lines.
+ *
+ * @author francis pouatcha
+ *
+ */
+public class PropertiesFileWriter {
+
+	public static final String LOCK_FILE_NAME = ".properties.lock";
+
+	private static final String TEMP_EXTENSION = ".tmp";
+	private static final int RENAME_ATTEMPTS = 5;
+	private static final long RENAME_RETRY_MILLIS = 20;
+
+	/*
+	 * File locks are held by the virtual machine, threads of the same shell
+	 * are serialized on these monitors, one per lock file.
+	 */
+	private static final Map<String, Object> MONITORS = new HashMap<String, Object>();
+
+	/**
+	 * Changes the loaded properties of a file.
+	 */
+	public interface Update {
+		/**
+		 * @return true if the properties changed and have to be written.
+		 */
+		boolean apply(Properties properties);
+	}
+
+	/**
+	 * Reloads the properties file, applies the update and writes the file if
+	 * the update changed it or if the file does not exist, all under the lock
+	 * of the file.
+	 *
+	 * @return true if the file was written.
+	 */
+	public static boolean update(File file, Update update) {
+		File absoluteFile = file.getAbsoluteFile();
+		File parent = absoluteFile.getParentFile();
+		if (!parent.exists())
+			parent.mkdirs();
+		File lockPath = new File(parent, LOCK_FILE_NAME);
+		Probe probe = CommandStatistics.get().start(Phase.BUNDLE_IO, file.getName());
+		synchronized (getMonitor(lockPath)) {
+			RandomAccessFile lockFile = null;
+			FileLock lock = null;
+			try {
+				lockFile = new RandomAccessFile(lockPath, "rw");
+				lock = lockFile.getChannel().lock();
+				Properties properties = BundleSession.load(absoluteFile);
+				if (!update.apply(properties) && absoluteFile.exists()) {
+					probe.end(0);
+					return false;
+				}
+				write(absoluteFile, properties);
+				probe.end(absoluteFile.length());
+				return true;
+			} catch (IOException e) {
+				throw new IllegalStateException("Could not write the properties file '"
+						+ file + "'", e);
+			} finally {
+				release(lock);
+				Utils.closeQuietly(lockFile);
+			}
+		}
+	}
+
+	/**
+	 * Replaces the content of the properties file under its lock.
+	 */
+	public static void store(File file, final Properties properties) {
+		update(file, new Update() {
+			@Override
+			public boolean apply(Properties current) {
+				current.clear();
+				current.putAll(properties);
+				return true;
+			}
+		});
+	}
+
+	/*
+	 * Writes to a temporary file of the same directory and renames it over
+	 * the target.
+	 */
+	private static void write(File file, Properties properties) throws IOException {
+		File parent = file.getParentFile();
+		File tempFile = File.createTempFile(file.getName(), TEMP_EXTENSION, parent);
+		FileOutputStream out = null;
+		try {
+			out = new FileOutputStream(tempFile);
+			serialize(properties, out);
+			out.flush();
+			out.getFD().sync();
+			out.close();
+			out = null;
+			rename(tempFile, file);
+		} finally {
+			Utils.closeQuietly(out);
+			if (tempFile.exists())
+				tempFile.delete();
+		}
+	}
+
+	/*
+	 * Retries a failed rename, as while another program reads the target,
+	 * but never deletes the target.
+	 */
+	private static void rename(File tempFile, File file) throws IOException {
+		for (int attempt = 1; !tempFile.renameTo(file); attempt++) {
+			if (attempt == RENAME_ATTEMPTS)
+				throw new IOException("Could not rename '" + tempFile + "' to '" + file + "'");
+			try {
+				Thread.sleep(RENAME_RETRY_MILLIS);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new IOException("Interrupted while renaming '" + tempFile + "' to '" + file + "'");
+			}
+		}
+	}
+
+	/**
+	 * @return the number of bytes of the properties once written by this
+	 *         writer.
+	 */
+	public static long size(Properties properties) {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		try {
+			serialize(properties, out);
+		} catch (IOException e) {
+			throw new IllegalStateException(e);
+		}
+		return out.size();
+	}
+
+	private static void serialize(Properties properties, OutputStream out) throws IOException {
+		new SortedProperties(properties).store(out, null);
+	}
+
+	/*
+	 * Properties#store iterates over keys() up to Java 8 and over entrySet()
+	 * since Java 9.
+	 */
+	private static class SortedProperties extends Properties {
+		private static final long serialVersionUID = 1L;
+
+		private final TreeMap<Object, Object> sorted;
+
+		SortedProperties(Properties properties) {
+			this.sorted = new TreeMap<Object, Object>(properties);
+			putAll(properties);
+		}
+
+		@Override
+		public synchronized Enumeration<Object> keys() {
+			return Collections.enumeration(sorted.keySet());
+		}
+
+		@Override
+		public Set<Map.Entry<Object, Object>> entrySet() {
+			return Collections.unmodifiableSet(sorted.entrySet());
+		}
+	}
+
+	private static Object getMonitor(File file) {
+		synchronized (MONITORS) {
+			Object monitor = MONITORS.get(file.getPath());
+			if (monitor == null) {
+				monitor = new Object();
+				MONITORS.put(file.getPath(), monitor);
+			}
+			return monitor;
+		}
+	}
+
+	private static void release(FileLock lock) {
+		if (lock == null)
+			return;
+		try {
+			lock.release();
+		} catch (IOException e) {
+			// released when the channel is closed
+		}
+	}
+}
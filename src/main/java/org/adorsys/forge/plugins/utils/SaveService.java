@@ -0,0 +1,193 @@
+package org.adorsys.forge.plugins.utils;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UnsupportedEncodingException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.enterprise.event.Event;
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+import org.adorsys.forge.plugins.utils.CommandStatistics.Phase;
+import org.adorsys.forge.plugins.utils.CommandStatistics.Probe;
+import org.jboss.forge.parser.java.JavaSource;
+import org.jboss.forge.project.Project;
+import org.jboss.forge.project.facets.JavaSourceFacet;
+import org.jboss.forge.resources.java.JavaResource;
+import org.jboss.forge.shell.events.PickupResource;
+
+/**
+ * Saves java sources for all plugins. A source is only written, and its
+ * resource only picked up, if its content differs from the file on disk.
+ *
+ * The hash of the last known content of each file is kept with the
+ * modification time and size of the file, so that the file is only read
+ * again when it changed behind our back.
+ *
+ * @author francis pouatcha
+ *
+ */
+@Singleton
+public class SaveService {
+
+	@Inject
+	private Event<PickupResource> pickup;
+
+	@Inject
+	private JavaSourceCache javaSourceCache;
+
+	private final Map<String, FileHash> hashes = new HashMap<String, FileHash>();
+
+	private long written;
+	private long skipped;
+
+	/**
+	 * Saves the source and fires a {@link PickupResource} event if the source
+	 * changed.
+	 *
+	 * @return true if the source was written.
+	 */
+	public boolean saveAndFire(Project project, JavaSource<?> source) {
+		JavaResource javaResource = save(project, source);
+		if (javaResource == null)
+			return false;
+		Probe probe = CommandStatistics.get().start(Phase.PICKUP, source.getQualifiedName());
+		pickup.fire(new PickupResource(javaResource));
+		probe.end(0);
+		return true;
+	}
+
+	/**
+	 * Saves the source without firing any event, as done for project wide
+	 * commands.
+	 *
+	 * @return the saved resource or null if the file already had this content.
+	 */
+	public JavaResource save(Project project, JavaSource<?> source) {
+		final JavaSourceFacet javaSourceFacet = project
+				.getFacet(JavaSourceFacet.class);
+		Probe probe = CommandStatistics.get().start(Phase.SAVE, source.getQualifiedName());
+		try {
+			JavaResource javaResource = javaSourceFacet.getJavaResource(source);
+			File file = javaResource.getUnderlyingResourceObject();
+			byte[] content = encode(source.toString());
+			byte[] hash = hash(content);
+			if (Arrays.equals(hash, getFileHash(file))) {
+				synchronized (this) {
+					skipped++;
+				}
+				probe.end(0);
+				return null;
+			}
+			javaSourceFacet.saveJavaSource(source);
+			javaSourceCache.invalidate(file);
+			synchronized (this) {
+				hashes.put(file.getAbsolutePath(), new FileHash(file.lastModified(),
+						file.length(), hash));
+				written++;
+			}
+			probe.end(content.length);
+			return javaResource;
+		} catch (FileNotFoundException e) {
+			throw new IllegalStateException("The current resource '"
+					+ source.getName() + "' was deleted from the file system.");
+		}
+	}
+
+	public synchronized String getStatistics() {
+		return "written=" + written + ", skipped=" + skipped;
+	}
+
+	public synchronized void resetStatistics() {
+		written = skipped = 0;
+	}
+
+	private byte[] getFileHash(File file) {
+		if (!file.exists())
+			return null;
+		String key = file.getAbsolutePath();
+		long lastModified = file.lastModified();
+		long length = file.length();
+		synchronized (this) {
+			FileHash fileHash = hashes.get(key);
+			if (fileHash != null && fileHash.lastModified == lastModified
+					&& fileHash.length == length)
+				return fileHash.hash;
+		}
+		byte[] hash = hash(file);
+		synchronized (this) {
+			hashes.put(key, new FileHash(lastModified, length, hash));
+		}
+		return hash;
+	}
+
+	/**
+	 * Hashes the UTF-8 encoding of the source text.
+	 */
+	public static byte[] hash(String content) {
+		return hash(encode(content));
+	}
+
+	public static byte[] hash(byte[] content) {
+		MessageDigest digest = newDigest();
+		return digest.digest(content);
+	}
+
+	public static byte[] hash(File file) {
+		MessageDigest digest = newDigest();
+		InputStream in = null;
+		try {
+			in = new FileInputStream(file);
+			byte[] buffer = new byte[8192];
+			int read;
+			while ((read = in.read(buffer)) != -1) {
+				digest.update(buffer, 0, read);
+			}
+		} catch (IOException e) {
+			throw new IllegalStateException("Could not read the file '" + file
+					+ "'", e);
+		} finally {
+			Utils.closeQuietly(in);
+		}
+		return digest.digest();
+	}
+
+	/**
+	 * @return the UTF-8 encoding of a source, as written to its file.
+	 */
+	public static byte[] encode(String content) {
+		try {
+			return content.getBytes("UTF-8");
+		} catch (UnsupportedEncodingException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private static MessageDigest newDigest() {
+		try {
+			return MessageDigest.getInstance("MD5");
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private static class FileHash {
+		private final long lastModified;
+		private final long length;
+		private final byte[] hash;
+
+		FileHash(long lastModified, long length, byte[] hash) {
+			this.lastModified = lastModified;
+			this.length = length;
+			this.hash = hash;
+		}
+	}
+}
@@ -0,0 +1,23 @@
+package org.adorsys.forge.plugins.utils;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Inherited;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+import javax.interceptor.InterceptorBinding;
+
+/**
+ * Records the phases of the commands of a plugin in the
+ * {@link CommandStatistics}, see {@link TimedInterceptor}.
+ *
+ * @author francis pouatcha
+ *
+ */
+@Inherited
+@InterceptorBinding
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ ElementType.TYPE, ElementType.METHOD })
+public @interface Timed {
+}
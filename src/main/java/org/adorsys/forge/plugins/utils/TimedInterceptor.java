@@ -0,0 +1,50 @@
+package org.adorsys.forge.plugins.utils;
+
+import java.lang.reflect.Method;
+
+import javax.inject.Inject;
+import javax.interceptor.AroundInvoke;
+import javax.interceptor.Interceptor;
+import javax.interceptor.InvocationContext;
+
+import org.jboss.forge.shell.plugins.Alias;
+import org.jboss.forge.shell.plugins.Command;
+
+/**
+ * Sets the command of the {@link CommandStatistics} around each command of a
+ * {@link Timed} plugin. Commands are named after the alias of the plugin and
+ * the name of the command, as typed in the shell. Once the command completed
+ * or failed, the {@link JavaSourceCache} drops the models it left unsaved.
+ *
+ * @author francis pouatcha
+ *
+ */
+@Timed
+@Interceptor
+public class TimedInterceptor {
+
+	@Inject
+	private JavaSourceCache javaSourceCache;
+
+	@AroundInvoke
+	public Object time(InvocationContext context) throws Exception {
+		Method method = context.getMethod();
+		Command command = method.getAnnotation(Command.class);
+		if (command == null)
+			return context.proceed();
+		CommandStatistics statistics = CommandStatistics.get();
+		CommandStatistics.Probe probe = statistics.begin(getName(method, command));
+		try {
+			return context.proceed();
+		} finally {
+			javaSourceCache.release();
+			statistics.end(probe);
+		}
+	}
+
+	private static String getName(Method method, Command command) {
+		String name = command.value().length() > 0 ? command.value() : method.getName();
+		Alias alias = method.getDeclaringClass().getAnnotation(Alias.class);
+		return alias != null ? alias.value() + " " + name : name;
+	}
+}
@@ -1,46 +1,109 @@
 package org.adorsys.forge.plugins.utils;
 
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Properties;
+
 import org.apache.commons.lang3.StringUtils;
 import org.jboss.forge.project.Project;
 import org.jboss.forge.project.facets.ResourceFacet;
-import org.jboss.forge.resources.PropertiesFileResource;
+import org.jboss.forge.resources.Resource;
+import org.jboss.forge.resources.java.JavaResource;
+import org.jboss.forge.shell.Shell;
 
 public class Utils {
 
+	public static void updatePropertiesFile(String key, String value,String bundleName, boolean override, Project project) {
+		updatePropertiesFile(Collections.singletonMap(key, (Collection<String>) Collections.singletonList(value)), bundleName, override, project);
+	}
+
 	/**
-	 * Gets another file resource. Creates a file in case it does not exist
+	 * Adds values to multi value properties. Each property is parsed once into
+	 * a {@link MultiValueProperty}, values already present are skipped. With
+	 * override, the given values replace the existing ones as they are. The
+	 * file is read once and only written if a property changed, under the
+	 * lock of the {@link PropertiesFileWriter}.
 	 * 
-	 * @param bundleName
-	 * @return
+	 * @return true if the file was written.
 	 */
-	public static PropertiesFileResource getOrCreate(final String bundleName, Project project) {
+	public static boolean updatePropertiesFile(final Map<String, ? extends Collection<String>> values, String bundleName, final boolean override, Project project) {
 		final ResourceFacet resourceFacet = project.getFacet(ResourceFacet.class);
-		PropertiesFileResource bundleFile = resourceFacet.getResourceFolder()
-				.getChildOfType(PropertiesFileResource.class,bundleName);
-		if (!bundleFile.exists())
-			bundleFile.createNewFile();
-		return bundleFile;
+		File propertiesFile = new File(resourceFacet.getResourceFolder().getUnderlyingResourceObject(), bundleName);
+		return PropertiesFileWriter.update(propertiesFile, new PropertiesFileWriter.Update() {
+			@Override
+			public boolean apply(Properties properties) {
+				boolean changed = false;
+				for (Entry<String, ? extends Collection<String>> entry : values.entrySet()) {
+					String property = properties.getProperty(entry.getKey());
+					String newProperty;
+					if(override){
+						/*
+						 * Values like passwords are stored as they are.
+						 */
+						newProperty = StringUtils.join(entry.getValue(), MultiValueProperty.SEPARATOR);
+					} else {
+						MultiValueProperty multiValueProperty = MultiValueProperty.parse(property);
+						multiValueProperty.addAll(entry.getValue());
+						newProperty = multiValueProperty.toString();
+					}
+					if(newProperty.equals(property)) continue;
+					properties.setProperty(entry.getKey(), newProperty);
+					changed = true;
+				}
+				return changed;
+			}
+		});
 	}
 
-	public static void updatePropertiesFile(String key, String value,String bundleName, boolean override, Project project) {
-		PropertiesFileResource propertiesFileResource = getOrCreate(bundleName, project);
-		String property = propertiesFileResource.getProperty(key);
-		if(override){
-			property=value;
-		} else {
-			if(StringUtils.isNotBlank(property)){
-				if(StringUtils.equalsIgnoreCase(value, property)) return;// This value is the only one existing for this key.
-				if(StringUtils.endsWithIgnoreCase(property, ","+value)) return;
-				if(StringUtils.startsWithIgnoreCase(property, value+",")) return;
-				if(StringUtils.containsIgnoreCase(property, ","+value+","))return;
-				/*
-				 * Either prefixed or sufixed with a comma
-				 */
-				property+=","+value;
-			} else {
-				property=value;
-			}
+	/**
+	 * Resolves the path of an existing file relative to the current directory
+	 * of the shell.
+	 */
+	public static File resolveFile(Shell shell, String path) {
+		File file = resolveOutputFile(shell, path);
+		if (!file.exists())
+			throw new IllegalStateException("The file '" + file + "' does not exist.");
+		return file;
+	}
+
+	/**
+	 * Resolves the path of a file to write relative to the current directory
+	 * of the shell. The file may not exist yet.
+	 */
+	public static File resolveOutputFile(Shell shell, String path) {
+		File file = new File(path);
+		if (!file.isAbsolute())
+			file = new File(shell.getCurrentDirectory().getUnderlyingResourceObject(), path);
+		return file;
+	}
+
+	/**
+	 * Returns the java resource holding the given resource. Field and method
+	 * resources are children of their java resource.
+	 * 
+	 * @return the java resource or null if the resource is not part of a java
+	 *         file.
+	 */
+	public static JavaResource getJavaResource(Resource<?> resource) {
+		Resource<?> current = resource;
+		while (current != null && !(current instanceof JavaResource)) {
+			current = current.getParent();
+		}
+		return (JavaResource) current;
+	}
+
+	public static void closeQuietly(Closeable closeable) {
+		if (closeable == null)
+			return;
+		try {
+			closeable.close();
+		} catch (IOException e) {
+			// ignore
 		}
-		propertiesFileResource.putProperty(key, property);
 	}
 }
@@ -0,0 +1,91 @@
+package org.adorsys.forge.plugins.description;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Properties;
+
+import org.adorsys.forge.plugins.utils.BundleSession;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Rebuilding the aggregated bundles only touches the constraint message
+ * keys.
+ *
+ * @author francis pouatcha
+ *
+ */
+public class ValidationMessagesTest {
+
+	private static final String NAME_KEY = "org.example.Person_name_NotNull_validation";
+	private static final String STALE_KEY = "org.example.Person_age_Min_validation";
+	private static final String HAND_WRITTEN_KEY = "javax.validation.constraints.NotNull.message";
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Test
+	public void rebuildKeepsHandWrittenMessages() throws IOException {
+		File resourceFolder = folder.getRoot();
+		write(new File(resourceFolder, "org/example/Person.properties"),
+				NAME_KEY + ".title", "Name required", NAME_KEY + ".text", "The name is required");
+		write(ValidationMessages.getBundleFile(resourceFolder, null),
+				HAND_WRITTEN_KEY, "may not be empty", STALE_KEY, "Too young");
+
+		new ValidationMessages(resourceFolder).rebuild();
+
+		Properties messages = BundleSession.load(ValidationMessages.getBundleFile(resourceFolder, null));
+		assertEquals("may not be empty", messages.getProperty(HAND_WRITTEN_KEY));
+		assertEquals("The name is required", messages.getProperty(NAME_KEY));
+		assertNull(messages.getProperty(STALE_KEY));
+		assertEquals(2, messages.size());
+	}
+
+	@Test
+	public void rebuildCleansLocalesWithoutDescriptionBundle() throws IOException {
+		File resourceFolder = folder.getRoot();
+		write(new File(resourceFolder, "org/example/Person.properties"),
+				NAME_KEY + ".title", "Name required");
+		File french = ValidationMessages.getBundleFile(resourceFolder, "fr");
+		write(french, HAND_WRITTEN_KEY, "ne peut pas être vide", STALE_KEY, "Trop jeune");
+
+		new ValidationMessages(resourceFolder).rebuild();
+
+		Properties messages = BundleSession.load(french);
+		assertEquals("ne peut pas être vide", messages.getProperty(HAND_WRITTEN_KEY));
+		assertNull(messages.getProperty(STALE_KEY));
+		assertEquals(1, messages.size());
+	}
+
+	@Test
+	public void rebuildLeavesMessagesWithoutTitleNorTextOut() throws IOException {
+		File resourceFolder = folder.getRoot();
+		write(new File(resourceFolder, "org/example/Person.properties"),
+				NAME_KEY + ".title", "", NAME_KEY + ".text", "");
+
+		new ValidationMessages(resourceFolder).rebuild();
+
+		assertFalse(ValidationMessages.getBundleFile(resourceFolder, null).exists());
+	}
+
+	private static void write(File file, String... entries) throws IOException {
+		file.getParentFile().mkdirs();
+		Properties properties = new Properties();
+		for (int i = 0; i < entries.length; i += 2) {
+			properties.setProperty(entries[i], entries[i + 1]);
+		}
+		OutputStream out = new FileOutputStream(file);
+		try {
+			properties.store(out, null);
+		} finally {
+			out.close();
+		}
+	}
+}
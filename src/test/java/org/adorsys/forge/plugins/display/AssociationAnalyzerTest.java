@@ -0,0 +1,263 @@
+package org.adorsys.forge.plugins.display;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.persistence.CascadeType;
+
+import org.adorsys.forge.plugins.display.AssociationAnalyzer.Finding;
+import org.adorsys.forge.plugins.display.AssociationAnalyzer.FindingType;
+import org.adorsys.forge.plugins.display.AssociationGraph.EntityNode;
+import org.adorsys.forge.plugins.display.AssociationGraph.Kind;
+import org.adorsys.forge.plugins.display.AssociationGraph.Relationship;
+import org.adorsys.javaext.display.AssociationType;
+import org.junit.Test;
+
+/**
+ * The findings of the association analyzer over small hand built graphs.
+ *
+ * @author francis pouatcha
+ *
+ */
+public class AssociationAnalyzerTest {
+
+	private static final Set<CascadeType> NO_CASCADE = Collections.emptySet();
+	private static final Set<CascadeType> PERSIST = EnumSet.of(CascadeType.PERSIST);
+
+	private final Map<String, EntityNode> entities = new HashMap<String, EntityNode>();
+
+	@Test
+	public void consistentBidirectionalRelationshipHasNoFinding() {
+		entity("a.Order", relationship("a.Order", "items", Kind.ONE_TO_MANY, "OrderItem", "order"));
+		entity("a.OrderItem", relationship("a.OrderItem", "order", Kind.MANY_TO_ONE, "Order", null));
+
+		assertTrue(analyze().isEmpty());
+	}
+
+	@Test
+	public void mappedByOfAMissingField() {
+		entity("a.Order", relationship("a.Order", "items", Kind.ONE_TO_MANY, "OrderItem", "purchase"));
+		entity("a.OrderItem", relationship("a.OrderItem", "order", Kind.MANY_TO_ONE, "Order", null));
+
+		List<Finding> findings = analyze();
+		assertEquals(1, findings.size());
+		assertEquals(FindingType.INCONSISTENT_BIDIRECTIONAL, findings.get(0).getType());
+		assertTrue(findings.get(0).getMessage().contains("OrderItem.purchase"));
+	}
+
+	@Test
+	public void mappedByOfAFieldReferencingAnotherEntity() {
+		entity("a.Order", relationship("a.Order", "items", Kind.ONE_TO_MANY, "OrderItem", "order"));
+		entity("a.OrderItem", relationship("a.OrderItem", "order", Kind.MANY_TO_ONE, "Invoice", null));
+		entity("a.Invoice");
+
+		List<Finding> findings = analyze();
+		assertEquals(1, findings.size());
+		assertEquals(FindingType.INCONSISTENT_BIDIRECTIONAL, findings.get(0).getType());
+		assertTrue(findings.get(0).getMessage().contains("does not reference Order"));
+	}
+
+	@Test
+	public void mappedByOfAFieldOfTheWrongKind() {
+		entity("a.Order", relationship("a.Order", "items", Kind.ONE_TO_MANY, "OrderItem", "order"));
+		entity("a.OrderItem", relationship("a.OrderItem", "order", Kind.ONE_TO_ONE, "Order", null));
+
+		List<Finding> findings = analyze();
+		assertEquals(1, findings.size());
+		assertEquals(FindingType.INCONSISTENT_BIDIRECTIONAL, findings.get(0).getType());
+		assertTrue(findings.get(0).getMessage().contains("(ONE_TO_ONE)"));
+	}
+
+	@Test
+	public void bothSidesMappedByTheOther() {
+		entity("a.Person", relationship("a.Person", "address", Kind.ONE_TO_ONE, "Address", "person"));
+		entity("a.Address", relationship("a.Address", "person", Kind.ONE_TO_ONE, "Person", "address"));
+
+		List<Finding> findings = analyze();
+		assertEquals(2, findings.size());
+		for (Finding finding : findings) {
+			assertEquals(FindingType.INCONSISTENT_BIDIRECTIONAL, finding.getType());
+			assertTrue(finding.getMessage().contains("none owns the relationship"));
+		}
+	}
+
+	@Test
+	public void missingMappedByIsReportedOncePerPair() {
+		entity("a.Order", relationship("a.Order", "items", Kind.ONE_TO_MANY, "OrderItem", null));
+		entity("a.OrderItem", relationship("a.OrderItem", "order", Kind.MANY_TO_ONE, "Order", null));
+
+		List<Finding> findings = analyze();
+		assertEquals(1, findings.size());
+		assertEquals(FindingType.MISSING_MAPPED_BY, findings.get(0).getType());
+		assertEquals("Order.items should be mapped by OrderItem.order (mappedBy=\"order\").",
+				findings.get(0).getMessage());
+	}
+
+	@Test
+	public void oneToOneMappedTwiceIsReportedOnce() {
+		entity("a.Person", relationship("a.Person", "address", Kind.ONE_TO_ONE, "Address", null));
+		entity("a.Address", relationship("a.Address", "person", Kind.ONE_TO_ONE, "Person", null));
+
+		List<Finding> findings = analyze();
+		assertEquals(1, findings.size());
+		assertEquals(FindingType.MISSING_MAPPED_BY, findings.get(0).getType());
+		assertTrue(findings.get(0).getMessage().contains("map the same relationship twice"));
+	}
+
+	@Test
+	public void selfReferenceWithoutMappedBy() {
+		entity("a.Category", relationship("a.Category", "parent", Kind.MANY_TO_ONE, "Category", null),
+				relationship("a.Category", "children", Kind.ONE_TO_MANY, "Category", null));
+
+		List<Finding> findings = analyze();
+		assertEquals(1, findings.size());
+		assertEquals("Category.children should be mapped by Category.parent (mappedBy=\"parent\").",
+				findings.get(0).getMessage());
+	}
+
+	@Test
+	public void severalCandidateInversesAreNotGuessed() {
+		entity("a.Order", relationship("a.Order", "items", Kind.ONE_TO_MANY, "OrderItem", null));
+		entity("a.OrderItem", relationship("a.OrderItem", "order", Kind.MANY_TO_ONE, "Order", null),
+				relationship("a.OrderItem", "previousOrder", Kind.MANY_TO_ONE, "Order", null));
+
+		assertTrue(analyze().isEmpty());
+	}
+
+	@Test
+	public void compositeOneToManyWithoutMappedBy() {
+		entity("a.Order", new Relationship("a.Order", "items", Kind.ONE_TO_MANY, "OrderItem", null,
+				NO_CASCADE, AssociationType.COMPOSITION));
+		entity("a.OrderItem");
+
+		List<Finding> findings = analyze();
+		assertEquals(1, findings.size());
+		assertEquals(FindingType.MISSING_MAPPED_BY, findings.get(0).getType());
+		assertTrue(findings.get(0).getMessage().contains("composite one to many"));
+	}
+
+	@Test
+	public void cascadeCycleOverTwoEntities() {
+		entity("a.Order", cascading("a.Order", "items", Kind.ONE_TO_MANY, "OrderItem", "order"));
+		entity("a.OrderItem", cascading("a.OrderItem", "order", Kind.MANY_TO_ONE, "Order", null));
+
+		List<Finding> findings = analyze();
+		assertEquals(1, findings.size());
+		assertEquals(FindingType.CASCADE_CYCLE, findings.get(0).getType());
+		assertTrue(findings.get(0).getMessage().contains("Order.items -> OrderItem"));
+		assertTrue(findings.get(0).getMessage().contains("OrderItem.order -> Order"));
+	}
+
+	@Test
+	public void cascadeInOneDirectionIsNoCycle() {
+		entity("a.Order", cascading("a.Order", "items", Kind.ONE_TO_MANY, "OrderItem", "order"));
+		entity("a.OrderItem", relationship("a.OrderItem", "order", Kind.MANY_TO_ONE, "Order", null));
+
+		assertTrue(analyze().isEmpty());
+	}
+
+	@Test
+	public void cascadeCycleOverThreeEntitiesIsOneFinding() {
+		entity("a.A", cascading("a.A", "b", Kind.MANY_TO_ONE, "B", null));
+		entity("a.B", cascading("a.B", "c", Kind.MANY_TO_ONE, "C", null));
+		entity("a.C", cascading("a.C", "a", Kind.MANY_TO_ONE, "A", null));
+
+		List<Finding> findings = analyze();
+		assertEquals(1, findings.size());
+		assertEquals(FindingType.CASCADE_CYCLE, findings.get(0).getType());
+	}
+
+	@Test
+	public void cascadingSelfReferenceIsACycle() {
+		entity("a.Category", cascading("a.Category", "parent", Kind.MANY_TO_ONE, "Category", null));
+
+		List<Finding> findings = analyze();
+		assertEquals(1, findings.size());
+		assertEquals(FindingType.CASCADE_CYCLE, findings.get(0).getType());
+		assertTrue(findings.get(0).getMessage().contains("Category.parent -> Category"));
+	}
+
+	@Test
+	public void selfReferenceWithoutCascadeIsNoCycle() {
+		entity("a.Category", relationship("a.Category", "parent", Kind.MANY_TO_ONE, "Category", null));
+
+		assertTrue(analyze().isEmpty());
+	}
+
+	@Test
+	public void ambiguousSimpleNameIsReported() {
+		entity("c.Order", relationship("c.Order", "items", Kind.ONE_TO_MANY, "Item", "order"));
+		entity("a.Item");
+		entity("b.Item", relationship("b.Item", "order", Kind.MANY_TO_ONE, "c.Order", null));
+
+		List<Finding> findings = analyze();
+		assertEquals(1, findings.size());
+		assertEquals(FindingType.AMBIGUOUS_TARGET, findings.get(0).getType());
+		assertTrue(findings.get(0).getMessage().startsWith("Order.items references Item"));
+	}
+
+	@Test
+	public void simpleNameIsResolvedWithTheImports() {
+		entity("c.Order", Arrays.asList("b.Item"),
+				relationship("c.Order", "items", Kind.ONE_TO_MANY, "Item", "order"));
+		entity("a.Item");
+		entity("b.Item", relationship("b.Item", "order", Kind.MANY_TO_ONE, "c.Order", null));
+
+		assertTrue(analyze().isEmpty());
+	}
+
+	@Test
+	public void simpleNameIsResolvedWithTheWildcardImports() {
+		entity("c.Order", Arrays.asList("a.*"),
+				relationship("c.Order", "items", Kind.ONE_TO_MANY, "Item", "order"));
+		entity("a.Item");
+		entity("b.Item", relationship("b.Item", "order", Kind.MANY_TO_ONE, "c.Order", null));
+
+		List<Finding> findings = analyze();
+		assertEquals(1, findings.size());
+		assertEquals(FindingType.INCONSISTENT_BIDIRECTIONAL, findings.get(0).getType());
+		assertTrue(findings.get(0).getMessage().contains("Item.order which is not a relationship field"));
+	}
+
+	@Test
+	public void samePackageWinsOverWildcardImports() {
+		entity("c.Order", Arrays.asList("a.*"),
+				relationship("c.Order", "items", Kind.ONE_TO_MANY, "Item", "order"));
+		entity("a.Item");
+		entity("c.Item", relationship("c.Item", "order", Kind.MANY_TO_ONE, "Order", null));
+
+		assertTrue(analyze().isEmpty());
+	}
+
+	private List<Finding> analyze() {
+		return new AssociationAnalyzer(entities).analyze();
+	}
+
+	private void entity(String qualifiedName, Relationship... relationships) {
+		entity(qualifiedName, Collections.<String> emptyList(), relationships);
+	}
+
+	private void entity(String qualifiedName, List<String> imports, Relationship... relationships) {
+		String packageName = qualifiedName.substring(0, qualifiedName.lastIndexOf('.'));
+		entities.put(qualifiedName, new EntityNode(qualifiedName, packageName, imports,
+				Arrays.asList(relationships)));
+	}
+
+	private static Relationship relationship(String owner, String field, Kind kind, String target,
+			String mappedBy) {
+		return new Relationship(owner, field, kind, target, mappedBy, NO_CASCADE, null);
+	}
+
+	private static Relationship cascading(String owner, String field, Kind kind, String target,
+			String mappedBy) {
+		return new Relationship(owner, field, kind, target, mappedBy, PERSIST, null);
+	}
+}
@@ -0,0 +1,120 @@
+package org.adorsys.forge.plugins.utils;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * The rows of comma separated files with quoted fields, trimmed blanks and
+ * comment lines.
+ *
+ * @author francis pouatcha
+ *
+ */
+public class CsvReaderTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Test
+	public void blanksAroundFieldsAreTrimmed() {
+		assertArrayEquals(new String[] { "a", "b c", "d" },
+				CsvReader.parse("  a ,\tb c\t,d  "));
+	}
+
+	@Test
+	public void emptyFieldsAreKept() {
+		assertArrayEquals(new String[] { "a", "", "", "b", "" },
+				CsvReader.parse("a,,  ,b,"));
+	}
+
+	@Test
+	public void quotedFieldsContainCommas() {
+		assertArrayEquals(new String[] { "a", "x, y", "b" },
+				CsvReader.parse("a,\"x, y\",b"));
+	}
+
+	@Test
+	public void quotedBlanksAreKept() {
+		assertArrayEquals(new String[] { "  x ", " " },
+				CsvReader.parse("  \"  x \"  , \" \""));
+	}
+
+	@Test
+	public void doubledQuotesStandForAQuote() {
+		assertArrayEquals(new String[] { "say \"hi\"", "\"" },
+				CsvReader.parse("\"say \"\"hi\"\"\",\"\"\"\""));
+	}
+
+	@Test
+	public void quotedAndUnquotedPartsOfAField() {
+		assertArrayEquals(new String[] { "a b, c" },
+				CsvReader.parse("a\" b,\" c "));
+	}
+
+	@Test
+	public void commentAndBlankLinesAreSkipped() throws IOException {
+		CsvReader reader = new CsvReader(write("# header", "", "a,b", "   ",
+				"  # indented comment", "c,\"# not a comment\""));
+		try {
+			assertArrayEquals(new String[] { "a", "b" }, reader.readRow());
+			assertEquals(3, reader.getLineNumber());
+			assertArrayEquals(new String[] { "c", "# not a comment" }, reader.readRow());
+			assertEquals(6, reader.getLineNumber());
+			assertNull(reader.readRow());
+		} finally {
+			reader.close();
+		}
+	}
+
+	@Test
+	public void rowWithTooFewFieldsIsRejected() throws IOException {
+		CsvReader reader = new CsvReader(write("a,b,c", "# comment", "d,e"));
+		try {
+			assertEquals(3, reader.readRow(3).length);
+			reader.readRow(3);
+			fail("two fields accepted");
+		} catch (IllegalStateException e) {
+			assertTrue(e.getMessage(), e.getMessage().startsWith("Line 3 of "));
+			assertTrue(e.getMessage(), e.getMessage().endsWith("has 2 fields, expected 3"));
+		} finally {
+			reader.close();
+		}
+	}
+
+	@Test
+	public void endOfFileIsNoRow() throws IOException {
+		CsvReader reader = new CsvReader(write("# only a comment"));
+		try {
+			assertNull(reader.readRow(2));
+		} finally {
+			reader.close();
+		}
+	}
+
+	private File write(String... lines) throws IOException {
+		File file = folder.newFile("rows.csv");
+		Writer writer = new OutputStreamWriter(new FileOutputStream(file), "UTF-8");
+		try {
+			for (String line : lines) {
+				writer.write(line);
+				writer.write('\n');
+			}
+		} finally {
+			writer.close();
+		}
+		return file;
+	}
+}
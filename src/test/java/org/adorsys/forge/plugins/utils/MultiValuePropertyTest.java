@@ -0,0 +1,82 @@
+package org.adorsys.forge.plugins.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+
+/**
+ * The ordered merge of multi value properties ignoring case.
+ *
+ * @author francis pouatcha
+ *
+ */
+public class MultiValuePropertyTest {
+
+	@Test
+	public void parseTrimsAndSkipsEmptyValues() {
+		MultiValueProperty property = MultiValueProperty.parse(" admin ,, user,");
+		assertEquals(2, property.size());
+		assertEquals("admin,user", property.toString());
+	}
+
+	@Test
+	public void parseOfNullIsEmpty() {
+		assertTrue(MultiValueProperty.parse(null).isEmpty());
+		assertEquals("", MultiValueProperty.parse(null).toString());
+	}
+
+	@Test
+	public void addIgnoresCaseAndKeepsTheFirstSpelling() {
+		MultiValueProperty property = MultiValueProperty.parse("Admin,user");
+		assertFalse(property.add("ADMIN"));
+		assertFalse(property.add(" user "));
+		assertTrue(property.contains("admin"));
+		assertEquals("Admin,user", property.toString());
+	}
+
+	@Test
+	public void addAllAppendsNewValuesInOrder() {
+		MultiValueProperty property = MultiValueProperty.parse("user,Admin");
+		assertTrue(property.addAll(Arrays.asList("guest", "admin", "Auditor",
+				"GUEST")));
+		assertEquals("user,Admin,guest,Auditor", property.toString());
+	}
+
+	@Test
+	public void addAllOfKnownValuesChangesNothing() {
+		MultiValueProperty property = MultiValueProperty.parse("user,admin");
+		assertFalse(property.addAll(Arrays.asList("USER", "Admin", "")));
+		assertEquals("user,admin", property.toString());
+	}
+
+	@Test
+	public void commasWithinParenthesesBelongToTheValue() {
+		MultiValueProperty property = MultiValueProperty
+				.parse("a.Person(read)(hasRole('admin', 'user')),a.Person(write)");
+		assertEquals(2, property.size());
+		assertTrue(property.contains("a.Person(read)(hasRole('admin', 'user'))"));
+		assertEquals("a.Person(read)(hasRole('admin', 'user')),a.Person(write)",
+				property.toString());
+	}
+
+	@Test
+	public void sharedExpressionFragmentsAreKept() {
+		MultiValueProperty property = MultiValueProperty
+				.parse("a.Person(read)(x == 1, y == 2)");
+		assertTrue(property.add("a.Order(read)(x == 1, z == 3)"));
+		assertEquals("a.Person(read)(x == 1, y == 2),a.Order(read)(x == 1, z == 3)",
+				property.toString());
+	}
+
+	@Test
+	public void valuesWithParenthesesAreCaseSensitive() {
+		MultiValueProperty property = MultiValueProperty.parse("a.Foo(read)");
+		assertTrue(property.add("a.foo(read)"));
+		assertFalse(property.add(" a.Foo(read) "));
+		assertEquals("a.Foo(read),a.foo(read)", property.toString());
+	}
+}
@@ -0,0 +1,61 @@
+package org.adorsys.forge.plugins.utils;
+
+import static org.junit.Assert.assertEquals;
+
+import org.adorsys.forge.plugins.utils.CommandStatistics.Phase;
+import org.adorsys.forge.plugins.utils.CommandStatistics.PhaseStatistics;
+import org.junit.Test;
+
+/**
+ * The nearest rank percentiles of the samples of a phase.
+ *
+ * @author francis pouatcha
+ *
+ */
+public class PhaseStatisticsTest {
+
+	private static final long MILLIS = 1000000L;
+	private static final double DELTA = 0.000001;
+
+	@Test
+	public void percentileOfNoSampleIsZero() {
+		PhaseStatistics statistics = new PhaseStatistics("verify", Phase.PARSE);
+		assertEquals(0, statistics.getPercentileMillis(50), DELTA);
+		assertEquals(0, statistics.getPercentileMillis(100), DELTA);
+	}
+
+	@Test
+	public void percentileIsTheNearestRank() {
+		PhaseStatistics statistics = new PhaseStatistics("verify", Phase.PARSE);
+		for (int i = 100; i > 0; i--) {
+			statistics.add(i * MILLIS, 0);
+		}
+		assertEquals(1, statistics.getPercentileMillis(0), DELTA);
+		assertEquals(1, statistics.getPercentileMillis(1), DELTA);
+		assertEquals(50, statistics.getPercentileMillis(50), DELTA);
+		assertEquals(95, statistics.getPercentileMillis(95), DELTA);
+		assertEquals(100, statistics.getPercentileMillis(100), DELTA);
+	}
+
+	@Test
+	public void percentileOfASingleSample() {
+		PhaseStatistics statistics = new PhaseStatistics("verify", Phase.SAVE);
+		statistics.add(3 * MILLIS / 2, 10);
+		assertEquals(1.5, statistics.getPercentileMillis(50), DELTA);
+		assertEquals(1.5, statistics.getPercentileMillis(99), DELTA);
+	}
+
+	@Test
+	public void percentileOnlyCountsTheKeptSamples() {
+		PhaseStatistics statistics = new PhaseStatistics("verify", Phase.MUTATE);
+		for (int i = 0; i < CommandStatistics.MAX_SAMPLES; i++) {
+			statistics.add(1000 * MILLIS, 0);
+		}
+		for (int i = 0; i < CommandStatistics.MAX_SAMPLES; i++) {
+			statistics.add(2 * MILLIS, 0);
+		}
+		assertEquals(2 * CommandStatistics.MAX_SAMPLES, statistics.getCount());
+		assertEquals(2, statistics.getPercentileMillis(100), DELTA);
+		assertEquals(1000, statistics.getMaxMillis(), DELTA);
+	}
+}